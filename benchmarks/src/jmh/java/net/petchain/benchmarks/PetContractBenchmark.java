@@ -0,0 +1,40 @@
+package net.petchain.benchmarks;
+
+import net.corda.core.transactions.LedgerTransaction;
+import net.petchain.contracts.PetContract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link PetContract#verify} for Born and Transfer transactions of increasing size. Every node runs this for
+ * every pet transaction it sees, including during back-chain resolution.
+ */
+@State(Scope.Benchmark)
+public class PetContractBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    private final PetContract contract = new PetContract();
+    private LedgerTransaction bornTx;
+    private LedgerTransaction transferTx;
+
+    @Setup
+    public void setup() {
+        PetLedgerFixture fixture = new PetLedgerFixture();
+        bornTx = fixture.born(batchSize);
+        transferTx = fixture.transfer(batchSize);
+    }
+
+    @Benchmark
+    public void verifyBorn() {
+        contract.verify(bornTx);
+    }
+
+    @Benchmark
+    public void verifyTransfer() {
+        contract.verify(transferTx);
+    }
+}
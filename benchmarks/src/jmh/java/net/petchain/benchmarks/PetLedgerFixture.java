@@ -0,0 +1,78 @@
+package net.petchain.benchmarks;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.serialization.internal.SerializationEnvironment;
+import net.corda.core.serialization.internal.SerializationEnvironmentKt;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.testing.core.TestIdentity;
+import net.corda.testing.internal.InternalSerializationTestHelpersKt;
+import net.corda.testing.node.MockServices;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the ledger transactions the benchmarks verify, outside of any node.
+ *
+ * Transactions are resolved against {@link MockServices}, so building them needs a serialization environment. It is
+ * installed process-wide because JMH may run setup and measurement on different threads.
+ */
+class PetLedgerFixture {
+    static final TestIdentity ALICE = new TestIdentity(new CordaX500Name("Alice", "TestLand", "US"));
+    static final TestIdentity BOB = new TestIdentity(new CordaX500Name("Bob", "TestCity", "US"));
+    static final Party NOTARY = new TestIdentity(new CordaX500Name("Notary", "London", "GB")).getParty();
+
+    private final MockServices services;
+
+    PetLedgerFixture() {
+        if (SerializationEnvironmentKt.get_driverSerializationEnv().get() == null) {
+            SerializationEnvironment env = InternalSerializationTestHelpersKt.createTestSerializationEnv();
+            SerializationEnvironmentKt.get_driverSerializationEnv().set(env);
+        }
+        this.services = new MockServices(Collections.singletonList("net.petchain.contracts"), ALICE);
+    }
+
+    static List<PetState> litter(int size) {
+        List<PetState> pets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            pets.add(new PetState(ALICE.getParty(), "Pup " + i, "Canine", "Cockapoo", i % 2 == 0 ? "female" : "male", "beige", "2019-05-01", ALICE.getParty()));
+        }
+        return pets;
+    }
+
+    private TransactionBuilder bornBuilder(List<PetState> pets) {
+        TransactionBuilder builder = new TransactionBuilder(NOTARY);
+        for (PetState pet : pets) builder.addOutputState(pet, PetContract.PET_CONTRACT_ID);
+        builder.addCommand(new PetContract.Commands.Born(), ALICE.getPublicKey());
+        return builder;
+    }
+
+    LedgerTransaction born(int size) {
+        return bornBuilder(litter(size)).toLedgerTransaction(services);
+    }
+
+    /**
+     * Records a litter born to Alice and returns a transaction moving all of it to Bob.
+     */
+    LedgerTransaction transfer(int size) {
+        SignedTransaction bornTx = services.signInitialTransaction(bornBuilder(litter(size)));
+        services.recordTransactions(bornTx);
+
+        TransactionBuilder builder = new TransactionBuilder(NOTARY);
+        for (int i = 0; i < size; i++) {
+            StateAndRef<PetState> input = bornTx.getTx().outRef(i);
+            builder.addInputState(input);
+            builder.addOutputState(input.getState().getData().withNewOwner(BOB.getParty()), PetContract.PET_CONTRACT_ID);
+        }
+        builder.addCommand(new PetContract.Commands.Transfer(), Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()));
+        return builder.toLedgerTransaction(services);
+    }
+}
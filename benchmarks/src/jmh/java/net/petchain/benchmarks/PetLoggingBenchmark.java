@@ -0,0 +1,87 @@
+package net.petchain.benchmarks;
+
+import com.template.flows.PetEvents;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what the pet flows pay for logging, per flow, with the JSON layout of {@code config/prod/log4j2.xml}.
+ *
+ * One operation is the logging of one transfer: the {@link PetEvents#TRANSFERRED} event and the flow's completion
+ * event. The logging modes are:
+ * <ul>
+ *     <li>{@code sync}: the production layout and appender with ordinary synchronous loggers, so the flow thread
+ *     formats and writes each event itself.</li>
+ *     <li>{@code async}: the production profile as deployed, with every logger asynchronous.</li>
+ *     <li>{@code off}: the pet flow loggers at WARN, so the events are skipped.</li>
+ * </ul>
+ * Eight threads log at once, as flow threads do on a busy node. The time per operation, multiplied by the target
+ * transfer rate, is the share of a core spent on logging. In {@code async} mode a sustained benchmark fills the ring
+ * buffer faster than the disk drains it, so the numbers include INFO events being discarded, which is what the
+ * production profile does under overload.
+ *
+ * Log4j picks its context selector when it is first used, and JMH runs each mode in a fresh JVM, so the mode is
+ * applied in {@link #setup} before anything logs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class PetLoggingBenchmark {
+    @Param({"sync", "async", "off"})
+    public String mode;
+
+    private Logger logger;
+    private List<UniqueIdentifier> pets;
+    private SecureHash txId;
+    private String traceId;
+
+    @Setup
+    public void setup() {
+        System.setProperty("log4j.configurationFile", System.getProperty("petchain.prodLogConfig"));
+        System.setProperty("log4j2.garbagefreeThreadContextMap", "true");
+        if (!mode.equals("sync")) {
+            System.setProperty("Log4jContextSelector", "org.apache.logging.log4j.core.async.AsyncLoggerContextSelector");
+            System.setProperty("log4j2.asyncQueueFullPolicy", "Discard");
+            System.setProperty("log4j2.discardThreshold", "INFO");
+        }
+        logger = LoggerFactory.getLogger("com.template.flows.TransferPetFlow");
+        if (mode.equals("off")) {
+            Configurator.setLevel(logger.getName(), Level.WARN);
+        }
+        pets = Collections.singletonList(new UniqueIdentifier());
+        txId = SecureHash.randomSHA256();
+        traceId = new UniqueIdentifier().getId().toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogManager.shutdown();
+    }
+
+    @Benchmark
+    public void transferFlowEvents() {
+        PetEvents.recorded(logger, PetEvents.TRANSFERRED, traceId, txId, pets, 12_000_000L);
+        PetEvents.flowCompleted(logger, "TransferPetFlow", traceId, 12_500_000L,
+                " find=1ms build=0ms verify=1ms sign=2ms collect=3ms notarise=4ms record=1ms");
+    }
+}
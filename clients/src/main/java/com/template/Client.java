@@ -1,12 +1,15 @@
 package com.template;
 
+import com.template.importer.PetImporter;
 import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
 import net.corda.core.messaging.CordaRPCOps;
 import net.corda.core.node.NodeInfo;
 import net.corda.core.utilities.NetworkHostAndPort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 import static net.corda.core.utilities.NetworkHostAndPort.parse;
@@ -14,23 +17,40 @@ import static net.corda.core.utilities.NetworkHostAndPort.parse;
 /**
  * Connects to a Corda node via RPC and performs RPC operations on the node.
  *
- * The RPC connection is configured using command line arguments.
+ * The RPC connection is configured using command line arguments. With no further arguments the client prints the
+ * network map; {@code import <file> [batch size] [max in flight]} registers the pets of a CSV or JSON file on the node
+ * with a {@link PetImporter}.
  */
 public class Client {
     private static final Logger logger = LoggerFactory.getLogger(Client.class);
 
-    public static void main(String[] args) {
+    private static final String USAGE = "Usage: Client <node address> <rpc username> <rpc password> [import <file> [batch size] [max in flight]]";
+
+    public static void main(String[] args) throws Exception {
         // Create an RPC connection to the node.
-        if (args.length != 3) throw new IllegalArgumentException("Usage: Client <node address> <rpc username> <rpc password>");
+        if (args.length != 3 && !(args.length >= 5 && args.length <= 7 && args[3].equals("import"))) {
+            throw new IllegalArgumentException(USAGE);
+        }
         final NetworkHostAndPort nodeAddress = parse(args[0]);
         final String rpcUsername = args[1];
         final String rpcPassword = args[2];
         final CordaRPCClient client = new CordaRPCClient(nodeAddress);
-        final CordaRPCOps proxy = client.start(rpcUsername, rpcPassword).getProxy();
+        final CordaRPCConnection connection = client.start(rpcUsername, rpcPassword);
+        final CordaRPCOps proxy = connection.getProxy();
 
-        // Interact with the node.
-        // For example, here we print the nodes on the network.
-        final List<NodeInfo> nodes = proxy.networkMapSnapshot();
-        logger.info("{}", nodes);
+        try {
+            if (args.length == 3) {
+                // Interact with the node.
+                // For example, here we print the nodes on the network.
+                final List<NodeInfo> nodes = proxy.networkMapSnapshot();
+                logger.info("{}", nodes);
+            } else {
+                final int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : PetImporter.DEFAULT_BATCH_SIZE;
+                final int maxInFlight = args.length > 6 ? Integer.parseInt(args[6]) : PetImporter.DEFAULT_MAX_IN_FLIGHT;
+                new PetImporter(proxy, batchSize, maxInFlight).importFile(Paths.get(args[4]));
+            }
+        } finally {
+            connection.notifyServerAndClose();
+        }
     }
-}
\ No newline at end of file
+}
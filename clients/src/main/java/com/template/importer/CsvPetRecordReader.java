@@ -0,0 +1,108 @@
+package com.template.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads pets from a CSV file whose header names the columns {@code petName}, {@code species}, {@code breed},
+ * {@code sex}, {@code color} and {@code birthDate}, in any order. Other columns are ignored. Fields may be quoted, with
+ * {@code ""} for a quote inside a quoted field, and quoted fields may span lines. Only the current record is held in
+ * memory.
+ */
+final class CsvPetRecordReader implements PetRecordReader {
+    private static final String[] COLUMNS = {"petName", "species", "breed", "sex", "color", "birthDate"};
+
+    private final BufferedReader in;
+    private final int[] positions = new int[COLUMNS.length];
+    private final StringBuilder field = new StringBuilder();
+    private long line;
+    private long row;
+
+    CsvPetRecordReader(Path file) throws IOException {
+        this.in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        final List<String> header = readFields();
+        if (header == null) throw new IOException(file + " is empty.");
+        final Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) byName.put(header.get(i).trim(), i);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            final Integer position = byName.get(COLUMNS[i]);
+            if (position == null) throw new IOException(file + " has no " + COLUMNS[i] + " column.");
+            positions[i] = position;
+        }
+    }
+
+    @Override
+    public PetRecord next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readFields();
+            if (fields == null) return null;
+        } while (fields.size() == 1 && fields.get(0).trim().isEmpty());
+        row++;
+        return new PetRecord(row, field(fields, 0), field(fields, 1), field(fields, 2),
+                field(fields, 3), field(fields, 4), field(fields, 5));
+    }
+
+    private String field(List<String> fields, int column) {
+        final int position = positions[column];
+        return position < fields.size() ? fields.get(position) : null;
+    }
+
+    /**
+     * The fields of the next record, or {@code null} at the end of the file.
+     */
+    private List<String> readFields() throws IOException {
+        String text = in.readLine();
+        if (text == null) return null;
+        line++;
+        final long startLine = line;
+        final List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) break;
+                // A quoted field carries on over the line break.
+                text = in.readLine();
+                if (text == null) throw new IOException("Unterminated quoted field in the record starting on line " + startLine + ".");
+                line++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            final char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
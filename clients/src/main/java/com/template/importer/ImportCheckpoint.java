@@ -0,0 +1,79 @@
+package com.template.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * How far an import has got, kept in a small properties file next to the import file.
+ *
+ * <ul>
+ *     <li>{@code importId} seeds the pet ids, so a resumed import gives each row the id it had the first time.</li>
+ *     <li>{@code sourceSize} is the size of the import file, so a checkpoint is not resumed against a different file.</li>
+ *     <li>{@code committedThrough} is the last row such that it and every row before it are recorded or rejected.</li>
+ *     <li>{@code submittedThrough} is the last row sent to the node. Rows after {@code committedThrough} and up to it
+ *     may or may not have been recorded.</li>
+ * </ul>
+ *
+ * The file is replaced atomically on every save, so a crash leaves either the old checkpoint or the new one.
+ */
+final class ImportCheckpoint {
+    final UUID importId;
+    final long sourceSize;
+    long committedThrough;
+    long submittedThrough;
+
+    private ImportCheckpoint(UUID importId, long sourceSize, long committedThrough, long submittedThrough) {
+        this.importId = importId;
+        this.sourceSize = sourceSize;
+        this.committedThrough = committedThrough;
+        this.submittedThrough = submittedThrough;
+    }
+
+    /**
+     * The saved checkpoint for {@code source}, or a fresh one if there is none.
+     */
+    static ImportCheckpoint load(Path checkpoint, Path source) throws IOException {
+        final long sourceSize = Files.size(source);
+        if (!Files.exists(checkpoint)) return new ImportCheckpoint(UUID.randomUUID(), sourceSize, 0, 0);
+
+        final Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        final long savedSize = Long.parseLong(properties.getProperty("sourceSize"));
+        if (savedSize != sourceSize) {
+            throw new IllegalStateException(checkpoint + " was written for a " + savedSize + " byte import file, but "
+                    + source + " is " + sourceSize + " bytes. Delete the checkpoint to import the file from the start.");
+        }
+        return new ImportCheckpoint(UUID.fromString(properties.getProperty("importId")), sourceSize,
+                Long.parseLong(properties.getProperty("committedThrough")),
+                Long.parseLong(properties.getProperty("submittedThrough")));
+    }
+
+    void save(Path checkpoint) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("importId", importId.toString());
+        properties.setProperty("sourceSize", Long.toString(sourceSize));
+        properties.setProperty("committedThrough", Long.toString(committedThrough));
+        properties.setProperty("submittedThrough", Long.toString(submittedThrough));
+        final Path partial = checkpoint.resolveSibling(checkpoint.getFileName() + ".partial");
+        try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            properties.store(out, "Pet import checkpoint");
+        }
+        Files.move(partial, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * The id of the pet imported from {@code row}, the same on every run of this import.
+     */
+    UUID petId(long row) {
+        return UUID.nameUUIDFromBytes((importId + ":" + row).getBytes(StandardCharsets.UTF_8));
+    }
+}
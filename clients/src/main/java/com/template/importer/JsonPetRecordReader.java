@@ -0,0 +1,45 @@
+package com.template.importer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Reads pets from a JSON file holding either one top-level array of record objects or one record object after another
+ * (as in newline-delimited JSON). Objects are bound one at a time from a streaming parser, so the array is never held
+ * in memory. Field names are those of the CSV header.
+ */
+final class JsonPetRecordReader implements PetRecordReader {
+    private final MappingIterator<Map<String, Object>> records;
+    private long row;
+
+    JsonPetRecordReader(Path file) throws IOException {
+        this.records = new ObjectMapper().readerFor(Map.class).readValues(file.toFile());
+    }
+
+    @Override
+    public PetRecord next() throws IOException {
+        try {
+            if (!records.hasNextValue()) return null;
+            final Map<String, Object> record = records.nextValue();
+            row++;
+            return new PetRecord(row, text(record, "petName"), text(record, "species"), text(record, "breed"),
+                    text(record, "sex"), text(record, "color"), text(record, "birthDate"));
+        } catch (RuntimeException e) {
+            throw new IOException("Could not parse record " + (row + 1) + ".", e);
+        }
+    }
+
+    private static String text(Map<String, Object> record, String name) {
+        final Object value = record.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        records.close();
+    }
+}
@@ -0,0 +1,247 @@
+package com.template.importer;
+
+import com.template.flows.BatchBirthFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.FlowHandle;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.petchain.contracts.PetValidator;
+import net.petchain.states.PetState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Registers the pets of a CSV or JSON file on a node, as births owned and bred by that node.
+ *
+ * Records are read one at a time and checked locally with {@link PetValidator}, against the contract's Born rules.
+ * Rows that break them are written to {@code <file>.rejects} with the contract's message and never reach the node.
+ * Valid pets are grouped into batches of {@code batchSize}, and each batch is recorded by one {@link BatchBirthFlow}.
+ * At most {@code maxInFlight} flows run at once: when that many are outstanding, reading stops until one finishes.
+ * Memory use is therefore bounded by {@code batchSize * (maxInFlight + 1)} pets, whatever the size of the file.
+ *
+ * Progress is checkpointed to {@code <file>.checkpoint} (see {@link ImportCheckpoint}) as batches finish. If a flow
+ * fails, no further batches are started, the ones in flight are waited for and the import stops. Running it again
+ * skips the rows already done. Every row's pet id is derived from the checkpoint's import id and the row number, so a
+ * batch that was in flight when the import stopped is checked against the vault and only its missing pets are sent
+ * again. A resumed import may list a rejected row twice.
+ */
+public class PetImporter {
+    private static final Logger logger = LoggerFactory.getLogger(PetImporter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = BatchBirthFlow.DEFAULT_BATCH_SIZE;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private static final Sort BY_STATE_REF = new Sort(Collections.singleton(new Sort.SortColumn(
+            new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF), Sort.Direction.ASC)));
+
+    private final CordaRPCOps proxy;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    // Batches started and not yet counted into the checkpoint, keyed by their last row, with whether they are done.
+    // Guarded by this.
+    private final TreeMap<Long, Boolean> batches = new TreeMap<>();
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile Throwable failure;
+    private ImportCheckpoint checkpoint;
+    private Path checkpointFile;
+    // The last row an earlier run of this import may have sent to the node.
+    private long uncertainThrough;
+
+    public PetImporter(CordaRPCOps proxy, int batchSize, int maxInFlight) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least one.");
+        if (maxInFlight < 1) throw new IllegalArgumentException("At least one batch must be allowed in flight.");
+        this.proxy = proxy;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Imports {@code source}, resuming from its checkpoint if there is one. Returns once every row is recorded or
+     * rejected, and fails if the import had to stop.
+     */
+    public void importFile(Path source) throws IOException, InterruptedException {
+        checkpointFile = source.resolveSibling(source.getFileName() + ".checkpoint");
+        final Path rejectsFile = source.resolveSibling(source.getFileName() + ".rejects");
+        checkpoint = ImportCheckpoint.load(checkpointFile, source);
+        uncertainThrough = checkpoint.submittedThrough;
+        if (checkpoint.committedThrough > 0) {
+            logger.info("Resuming the import of {} after row {}", source, checkpoint.committedThrough);
+        }
+
+        final Party me = proxy.nodeInfo().getLegalIdentities().get(0);
+        final long started = System.nanoTime();
+        long lastRow = checkpoint.committedThrough;
+        try (PetRecordReader reader = PetRecordReader.open(source);
+             Writer rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            List<PetState> batch = new ArrayList<>(batchSize);
+            long firstRow = lastRow + 1;
+            PetRecord record;
+            while (failure == null && (record = reader.next()) != null) {
+                lastRow = record.getRow();
+                if (lastRow <= checkpoint.committedThrough) continue;
+
+                final String violation = PetValidator.bornAttributesViolation(record.getSpecies(), record.getBreed(),
+                        record.getColor(), record.getSex(), record.getBirthDate());
+                if (violation != null) {
+                    rejects.write(lastRow + "," + violation + "\n");
+                    rejected.incrementAndGet();
+                    continue;
+                }
+                batch.add(new PetState(me, record.getPetName(), record.getSpecies(), record.getBreed(), record.getSex(),
+                        record.getColor(), record.getBirthDate(), me, new UniqueIdentifier(null, checkpoint.petId(lastRow))));
+                if (batch.size() == batchSize) {
+                    // Rejects are flushed before the batch that covers them can be checkpointed.
+                    rejects.flush();
+                    submit(batch, firstRow, lastRow);
+                    batch = new ArrayList<>(batchSize);
+                    firstRow = lastRow + 1;
+                }
+            }
+            rejects.flush();
+            if (failure == null) submit(batch, firstRow, lastRow);
+        } finally {
+            // Wait for the batches still in flight, so the checkpoint covers them.
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        if (failure != null) {
+            throw new IllegalStateException("The import of " + source + " stopped after row " + checkpoint.committedThrough
+                    + ". Run it again to resume.", failure);
+        }
+        logger.info("Imported {} in {} s: {} pets recorded, {} rows rejected (see {})", source,
+                (System.nanoTime() - started) / 1_000_000_000, recorded.get(), rejected.get(), rejectsFile);
+    }
+
+    /**
+     * Starts the flow for a batch covering rows {@code firstRow} to {@code lastRow}, waiting first if
+     * {@code maxInFlight} batches are already running. The batch may be empty if all of its rows were rejected.
+     */
+    private void submit(List<PetState> batch, long firstRow, long lastRow) throws IOException, InterruptedException {
+        final List<PetState> pets = firstRow <= uncertainThrough ? notYetRecorded(batch) : batch;
+        if (pets.isEmpty()) {
+            synchronized (this) {
+                batches.put(lastRow, true);
+                advance();
+            }
+            return;
+        }
+
+        inFlight.acquire();
+        if (failure != null) {
+            inFlight.release();
+            return;
+        }
+        synchronized (this) {
+            batches.put(lastRow, false);
+            // Saved before the flow starts, so that a crash from here on leaves this batch in the checked window.
+            checkpoint.submittedThrough = Math.max(checkpoint.submittedThrough, lastRow);
+            checkpoint.save(checkpointFile);
+        }
+
+        final FlowHandle<List<SecureHash>> flow;
+        try {
+            flow = proxy.startFlowDynamic(BatchBirthFlow.class, pets, batchSize);
+        } catch (RuntimeException e) {
+            failed(lastRow, e);
+            return;
+        }
+        flow.getReturnValue().then((CordaFuture<List<SecureHash>> result) -> {
+            try {
+                result.get();
+                recorded.addAndGet(pets.size());
+                synchronized (this) {
+                    batches.put(lastRow, true);
+                    advance();
+                }
+                inFlight.release();
+            } catch (ExecutionException | InterruptedException | IOException e) {
+                failed(lastRow, e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e);
+            }
+            return null;
+        });
+    }
+
+    private void failed(long lastRow, Throwable e) {
+        logger.error("The batch ending at row {} was not recorded", lastRow, e);
+        if (failure == null) failure = e;
+        inFlight.release();
+    }
+
+    /**
+     * Moves {@code committedThrough} past every leading batch that is done, and saves the checkpoint if it moved.
+     */
+    private void advance() throws IOException {
+        final long before = checkpoint.committedThrough;
+        Map.Entry<Long, Boolean> first;
+        while ((first = batches.firstEntry()) != null && first.getValue()) {
+            checkpoint.committedThrough = first.getKey();
+            batches.remove(first.getKey());
+        }
+        if (checkpoint.committedThrough != before) {
+            checkpoint.save(checkpointFile);
+            logger.info("Imported through row {}: {} pets recorded, {} rows rejected",
+                    checkpoint.committedThrough, recorded.get(), rejected.get());
+        }
+    }
+
+    /**
+     * The pets of a batch that an earlier run may have recorded, less those it did record. A pet recorded since may
+     * have been transferred on, so consumed states count too; a pet can then have several states, so the query is
+     * paged until every one has been seen.
+     */
+    private List<PetState> notYetRecorded(List<PetState> batch) {
+        if (batch.isEmpty()) return batch;
+        final List<UUID> ids = new ArrayList<>(batch.size());
+        for (PetState pet : batch) ids.add(pet.getLinearId().getId());
+        final QueryCriteria anyState = new QueryCriteria.LinearStateQueryCriteria(null, ids, null, Vault.StateStatus.ALL);
+
+        final Set<UUID> known = new HashSet<>(batch.size() * 2);
+        for (int pageNumber = DEFAULT_PAGE_NUM; known.size() < ids.size(); pageNumber++) {
+            final List<StateAndRef<PetState>> found = proxy.vaultQueryBy(
+                    anyState, new PageSpecification(pageNumber, batch.size()), BY_STATE_REF, PetState.class).getStates();
+            for (StateAndRef<PetState> pet : found) known.add(pet.getState().getData().getLinearId().getId());
+            if (found.size() < batch.size()) break;
+        }
+        if (known.isEmpty()) return batch;
+
+        final List<PetState> missing = new ArrayList<>(batch.size() - known.size());
+        for (PetState pet : batch) {
+            if (!known.contains(pet.getLinearId().getId())) missing.add(pet);
+        }
+        recorded.addAndGet(batch.size() - missing.size());
+        return missing;
+    }
+}
@@ -0,0 +1,57 @@
+package com.template.importer;
+
+/**
+ * One pet read from an import file. {@code row} is the record's 1-based position among the file's records, not
+ * counting a CSV header; it identifies the record in rejects and checkpoints. Missing fields are empty strings.
+ */
+public final class PetRecord {
+    private final long row;
+    private final String petName;
+    private final String species;
+    private final String breed;
+    private final String sex;
+    private final String color;
+    private final String birthDate;
+
+    PetRecord(long row, String petName, String species, String breed, String sex, String color, String birthDate) {
+        this.row = row;
+        this.petName = orEmpty(petName);
+        this.species = orEmpty(species);
+        this.breed = orEmpty(breed);
+        this.sex = orEmpty(sex);
+        this.color = orEmpty(color);
+        this.birthDate = orEmpty(birthDate);
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public String getPetName() {
+        return petName;
+    }
+
+    public String getSpecies() {
+        return species;
+    }
+
+    public String getBreed() {
+        return breed;
+    }
+
+    public String getSex() {
+        return sex;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getBirthDate() {
+        return birthDate;
+    }
+}
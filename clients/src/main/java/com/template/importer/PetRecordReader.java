@@ -0,0 +1,26 @@
+package com.template.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Reads pet records from an import file one at a time, so a file of any size is read in constant memory.
+ */
+public interface PetRecordReader extends Closeable {
+    /**
+     * The next record, or {@code null} at the end of the file. A record that cannot be parsed at all fails with an
+     * {@link IOException}; one that parses but breaks the birth rules is returned and rejected by the importer.
+     */
+    PetRecord next() throws IOException;
+
+    /**
+     * Opens a {@code .csv} file, or a {@code .json} file holding either one array of records or one record per line.
+     */
+    static PetRecordReader open(Path file) throws IOException {
+        final String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".csv")) return new CsvPetRecordReader(file);
+        if (name.endsWith(".json") || name.endsWith(".ndjson")) return new JsonPetRecordReader(file);
+        throw new IllegalArgumentException("Import files must be .csv, .json or .ndjson: " + file);
+    }
+}
@@ -0,0 +1,98 @@
+package com.template.snapshot;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.petchain.states.PetState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Exports the pets that were unconsumed at one instant to a snapshot file.
+ *
+ * The instant is the node's clock when the export starts. The export pages through every PetState recorded up to
+ * then, consumed or not, and keeps those that had not been consumed by then. That set does not change while the
+ * export runs, so paging by offset neither skips nor repeats a pet even as transfers carry on, and a pet transferred
+ * mid-export appears once, with the owner it had at the snapshot time. Only one page is held at a time.
+ *
+ * The file is written next to its destination and moved into place when complete, so readers never see a partial
+ * snapshot.
+ */
+public class PetSnapshotExporter {
+    private static final Logger logger = LoggerFactory.getLogger(PetSnapshotExporter.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    private static final Sort BY_STATE_REF = new Sort(Collections.singleton(new Sort.SortColumn(
+            new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF), Sort.Direction.ASC)));
+
+    private final CordaRPCOps proxy;
+    private final int pageSize;
+
+    public PetSnapshotExporter(CordaRPCOps proxy, int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size must be at least one.");
+        this.proxy = proxy;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Writes the snapshot to {@code destination} and returns the number of pets in it.
+     */
+    public long export(Path destination) throws IOException {
+        final Instant snapshotTime = proxy.currentNodeTime();
+        final String node = proxy.nodeInfo().getLegalIdentities().get(0).getName().toString();
+        final QueryCriteria recordedByThen = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.ALL, null, null, null, null,
+                new QueryCriteria.TimeCondition(QueryCriteria.TimeInstantType.RECORDED, Builder.lessThanOrEqual(snapshotTime)));
+
+        final Path partial = destination.resolveSibling(destination.getFileName() + ".partial");
+        final long started = System.nanoTime();
+        final long exported;
+        try {
+            exported = write(partial, snapshotTime, node, recordedByThen);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Exported {} pets unconsumed at {} to {} in {} ms",
+                exported, snapshotTime, destination, (System.nanoTime() - started) / 1_000_000);
+        return exported;
+    }
+
+    private long write(Path file, Instant snapshotTime, String node, QueryCriteria recordedByThen) throws IOException {
+        long scanned = 0;
+        try (PetSnapshotWriter writer = new PetSnapshotWriter(file, snapshotTime, node)) {
+            for (int pageNumber = DEFAULT_PAGE_NUM; ; pageNumber++) {
+                final Vault.Page<PetState> page = proxy.vaultQueryBy(
+                        recordedByThen, new PageSpecification(pageNumber, pageSize), BY_STATE_REF, PetState.class);
+                final List<StateAndRef<PetState>> states = page.getStates();
+                final List<Vault.StateMetadata> metadata = page.getStatesMetadata();
+                for (int i = 0; i < states.size(); i++) {
+                    final Instant consumed = metadata.get(i).getConsumedTime();
+                    if (consumed == null || consumed.isAfter(snapshotTime)) {
+                        writer.write(states.get(i).getState().getData(), states.get(i).getRef());
+                    }
+                }
+                scanned += states.size();
+                if (states.size() < pageSize) break;
+            }
+            logger.debug("Scanned {} pet states recorded by {}", scanned, snapshotTime);
+            return writer.getRecords();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.template.snapshot;
+
+/**
+ * The layout of a pet registry snapshot file. All numbers are big-endian.
+ *
+ * <pre>
+ * header     magic "PETSNAP" and version byte 2
+ *            long   snapshot time, epoch milliseconds
+ *            string node name
+ * records    one per pet, each an int length followed by that many bytes:
+ *            long   linear id, most significant bits
+ *            long   linear id, least significant bits
+ *            string external id, or null
+ *            32     state ref transaction hash
+ *            int    state ref index
+ *            string pet name
+ *            int    species, breed, sex, color, owner and breeder, as dictionary codes
+ *            string birth date
+ *            byte   1 if the pet was reissued, followed by the 32 byte hash and int index of the retired state
+ *            string rabies license, issue date and expiry date, each or null
+ *            string municipal license and expiry date, each or null
+ * dictionary int    number of entries, followed by each entry as a string; code n is the n-th entry
+ * trailer    long   number of records
+ *            long   offset of the dictionary
+ *            int    magic "PEND"
+ * </pre>
+ *
+ * A string is a short byte count followed by its UTF-8 bytes; a count of -1 is null. The columns that repeat across
+ * a registry (species, breed, sex, color and the parties) are stored once in the dictionary and as four bytes per pet.
+ * The dictionary is written last, so the exporter can stream records without knowing every value in advance, and the
+ * fixed-size trailer lets a reader find it.
+ *
+ * Version 2 added the vaccination and license fields. Version 1 files are not read; export a new snapshot.
+ */
+final class PetSnapshotFormat {
+    static final byte[] MAGIC = {'P', 'E', 'T', 'S', 'N', 'A', 'P', 2};
+    static final int TRAILER_MAGIC = 0x50454E44;
+    static final int TRAILER_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES;
+    static final int HASH_SIZE = 32;
+
+    private PetSnapshotFormat() {
+    }
+}
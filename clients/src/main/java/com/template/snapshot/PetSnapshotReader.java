@@ -0,0 +1,111 @@
+package com.template.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reads a pet registry snapshot by memory-mapping it.
+ *
+ * Opening a snapshot reads only the header and the dictionary. {@link #forEach} then walks the records in place with a
+ * single {@link SnapshotPet} cursor, decoding only the fields a scan asks for; the operating system pages the file in
+ * as the scan reaches it. A snapshot must be smaller than 2 GB, the most one mapping can cover.
+ *
+ * The mapping stays valid until it is garbage collected, even after {@link #close}, but cursors must not be used
+ * once the reader is closed.
+ */
+public class PetSnapshotReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer file;
+    private final Instant snapshotTime;
+    private final String node;
+    private final int recordsStart;
+    private final int recordsEnd;
+    private final long records;
+    private final String[] dictionary;
+
+    private PetSnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new IOException("Snapshots larger than 2 GB cannot be mapped.");
+        if (size < PetSnapshotFormat.MAGIC.length + PetSnapshotFormat.TRAILER_SIZE) throw new IOException("Not a pet snapshot.");
+        this.file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+        final byte[] magic = new byte[PetSnapshotFormat.MAGIC.length];
+        file.get(magic);
+        if (!Arrays.equals(magic, PetSnapshotFormat.MAGIC)) throw new IOException("Not a pet snapshot, or an unsupported version.");
+        this.snapshotTime = Instant.ofEpochMilli(file.getLong());
+        this.node = readString(file);
+        this.recordsStart = file.position();
+
+        final int trailer = (int) size - PetSnapshotFormat.TRAILER_SIZE;
+        if (file.getInt(trailer + 2 * Long.BYTES) != PetSnapshotFormat.TRAILER_MAGIC) {
+            throw new IOException("Pet snapshot is incomplete; it was not closed by its writer.");
+        }
+        this.records = file.getLong(trailer);
+        this.recordsEnd = (int) file.getLong(trailer + Long.BYTES);
+
+        file.position(recordsEnd);
+        this.dictionary = new String[file.getInt()];
+        for (int i = 0; i < dictionary.length; i++) dictionary[i] = readString(file);
+    }
+
+    public static PetSnapshotReader open(Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PetSnapshotReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Instant getSnapshotTime() {
+        return snapshotTime;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public long size() {
+        return records;
+    }
+
+    /**
+     * Calls {@code action} once per pet, in the order they were exported. The same cursor is passed every time and
+     * moved on after the call returns, so copy out any value that must outlive it.
+     */
+    public void forEach(Consumer<SnapshotPet> action) {
+        final ByteBuffer view = file.duplicate();
+        final SnapshotPet cursor = new SnapshotPet(view, dictionary);
+        int position = recordsStart;
+        while (position < recordsEnd) {
+            final int length = view.getInt(position);
+            cursor.moveTo(position + Integer.BYTES);
+            action.accept(cursor);
+            position += Integer.BYTES + length;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static String readString(ByteBuffer buffer) {
+        final short length = buffer.getShort();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,155 @@
+package com.template.snapshot;
+
+import net.corda.core.contracts.StateRef;
+import net.petchain.states.PetState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a pet registry snapshot in the {@link PetSnapshotFormat} layout.
+ *
+ * Records are encoded into one reusable direct buffer and written to the file channel whenever it fills, so memory
+ * use is the buffer plus the dictionary of distinct species, breeds, colours and parties, however many pets are
+ * written. {@link #close} appends the dictionary and trailer; a file that was not closed has no trailer and is
+ * rejected by {@link PetSnapshotReader}.
+ */
+public class PetSnapshotWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private long records;
+
+    public PetSnapshotWriter(Path file, Instant snapshotTime, String node) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.put(PetSnapshotFormat.MAGIC);
+        buffer.putLong(snapshotTime.toEpochMilli());
+        putString(node);
+    }
+
+    public void write(PetState pet, StateRef ref) throws IOException {
+        if (buffer.remaining() < Integer.BYTES + maxRecordSize(pet)) flush();
+        final int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+
+        buffer.putLong(pet.getLinearId().getId().getMostSignificantBits());
+        buffer.putLong(pet.getLinearId().getId().getLeastSignificantBits());
+        putString(pet.getLinearId().getExternalId());
+        putStateRef(ref);
+        putString(pet.getPetName());
+        buffer.putInt(code(pet.getSpecies()));
+        buffer.putInt(code(pet.getBreed()));
+        buffer.putInt(code(pet.getSex()));
+        buffer.putInt(code(pet.getColor()));
+        buffer.putInt(code(pet.getOwner().getName().toString()));
+        buffer.putInt(code(pet.getBreeder().getName().toString()));
+        putString(pet.getBirthDate());
+        if (pet.getReissuedFrom() == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1);
+            putStateRef(pet.getReissuedFrom());
+        }
+        putString(pet.getRabiesLicense());
+        putString(pet.getRabiesIssueDate());
+        putString(pet.getRabiesExpireDate());
+        putString(pet.getMuniLicense());
+        putString(pet.getMuniExpireDate());
+
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+        records++;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            final long dictionaryOffset = channel.position();
+            buffer.putInt(dictionary.size());
+            for (String value : dictionary) {
+                if (buffer.remaining() < maxStringSize(value)) flush();
+                putString(value);
+            }
+            if (buffer.remaining() < PetSnapshotFormat.TRAILER_SIZE) flush();
+            buffer.putLong(records);
+            buffer.putLong(dictionaryOffset);
+            buffer.putInt(PetSnapshotFormat.TRAILER_MAGIC);
+            flush();
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private int code(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return code;
+    }
+
+    private void putStateRef(StateRef ref) {
+        buffer.put(ref.getTxhash().getBytes());
+        buffer.putInt(ref.getIndex());
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot strings are limited to " + Short.MAX_VALUE + " bytes.");
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    // Upper bounds, so that a record is never split across two writes of the buffer. A UTF-8 encoded char takes
+    // at most three bytes.
+    private static int maxRecordSize(PetState pet) {
+        return 2 * Long.BYTES
+                + maxStringSize(pet.getLinearId().getExternalId())
+                + 2 * (PetSnapshotFormat.HASH_SIZE + Integer.BYTES)
+                + maxStringSize(pet.getPetName())
+                + 6 * Integer.BYTES
+                + maxStringSize(pet.getBirthDate())
+                + 1
+                + maxStringSize(pet.getRabiesLicense())
+                + maxStringSize(pet.getRabiesIssueDate())
+                + maxStringSize(pet.getRabiesExpireDate())
+                + maxStringSize(pet.getMuniLicense())
+                + maxStringSize(pet.getMuniExpireDate());
+    }
+
+    private static int maxStringSize(String value) {
+        return Short.BYTES + (value == null ? 0 : 3 * value.length());
+    }
+}
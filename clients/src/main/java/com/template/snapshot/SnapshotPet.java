@@ -0,0 +1,137 @@
+package com.template.snapshot;
+
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * A cursor over one pet record of a mapped snapshot, see {@link PetSnapshotReader#forEach}.
+ *
+ * Moving to a record only finds where its variable-length fields start. Dictionary-coded fields (species, breed, sex,
+ * color, owner and breeder) return the snapshot's shared strings and so cost nothing to read; the other fields are
+ * decoded when their getter is called.
+ */
+public class SnapshotPet {
+    private final ByteBuffer file;
+    private final String[] dictionary;
+    private int record;
+    private int stateRef;
+    private int petName;
+    private int codes;
+    private int birthDate;
+    private int reissuedFrom;
+    private int rabiesLicense;
+
+    SnapshotPet(ByteBuffer file, String[] dictionary) {
+        this.file = file;
+        this.dictionary = dictionary;
+    }
+
+    void moveTo(int position) {
+        record = position;
+        stateRef = skipString(position + 2 * Long.BYTES);
+        petName = stateRef + PetSnapshotFormat.HASH_SIZE + Integer.BYTES;
+        codes = skipString(petName);
+        birthDate = codes + 6 * Integer.BYTES;
+        reissuedFrom = skipString(birthDate);
+        rabiesLicense = reissuedFrom + 1 + (file.get(reissuedFrom) == 0 ? 0 : PetSnapshotFormat.HASH_SIZE + Integer.BYTES);
+    }
+
+    public UUID getId() {
+        return new UUID(file.getLong(record), file.getLong(record + Long.BYTES));
+    }
+
+    public UniqueIdentifier getLinearId() {
+        return new UniqueIdentifier(string(record + 2 * Long.BYTES), getId());
+    }
+
+    public StateRef getStateRef() {
+        return stateRef(stateRef);
+    }
+
+    public String getPetName() {
+        return string(petName);
+    }
+
+    public String getSpecies() {
+        return dictionary[file.getInt(codes)];
+    }
+
+    public String getBreed() {
+        return dictionary[file.getInt(codes + Integer.BYTES)];
+    }
+
+    public String getSex() {
+        return dictionary[file.getInt(codes + 2 * Integer.BYTES)];
+    }
+
+    public String getColor() {
+        return dictionary[file.getInt(codes + 3 * Integer.BYTES)];
+    }
+
+    /** The owner's X.500 name. */
+    public String getOwner() {
+        return dictionary[file.getInt(codes + 4 * Integer.BYTES)];
+    }
+
+    /** The breeder's X.500 name. */
+    public String getBreeder() {
+        return dictionary[file.getInt(codes + 5 * Integer.BYTES)];
+    }
+
+    public String getBirthDate() {
+        return string(birthDate);
+    }
+
+    /** The retired state this pet was reissued from, or {@code null} if it was never checkpointed. */
+    public StateRef getReissuedFrom() {
+        return file.get(reissuedFrom) == 0 ? null : stateRef(reissuedFrom + 1);
+    }
+
+    public String getRabiesLicense() {
+        return string(rabiesLicense);
+    }
+
+    public String getRabiesIssueDate() {
+        return string(skipString(rabiesLicense));
+    }
+
+    public String getRabiesExpireDate() {
+        return string(skipStrings(rabiesLicense, 2));
+    }
+
+    public String getMuniLicense() {
+        return string(skipStrings(rabiesLicense, 3));
+    }
+
+    public String getMuniExpireDate() {
+        return string(skipStrings(rabiesLicense, 4));
+    }
+
+    private int skipStrings(int position, int count) {
+        for (int i = 0; i < count; i++) position = skipString(position);
+        return position;
+    }
+
+    private int skipString(int position) {
+        final short length = file.getShort(position);
+        return position + Short.BYTES + Math.max(length, 0);
+    }
+
+    private String string(int position) {
+        final ByteBuffer view = file.duplicate();
+        view.position(position);
+        return PetSnapshotReader.readString(view);
+    }
+
+    private StateRef stateRef(int position) {
+        final byte[] hash = new byte[PetSnapshotFormat.HASH_SIZE];
+        final ByteBuffer view = file.duplicate();
+        view.position(position);
+        view.get(hash);
+        return new StateRef(new SecureHash.SHA256(hash), view.getInt());
+    }
+}
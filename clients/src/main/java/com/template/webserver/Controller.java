@@ -1,27 +1,192 @@
 package com.template.webserver;
 
-import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.identity.CordaX500Name;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Define your API endpoints here.
+ *
+ * These are the servlet endpoints; {@link ReactiveController} serves the same API when the webserver is started with
+ * {@code --config.web.mode=reactive}.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/") // The paths for HTTP requests are relative to this base path.
 public class Controller {
-    private final CordaRPCOps proxy;
+    private final NodeRPCConnection rpc;
+    private final PetUpdateBroadcaster updates;
+    private final PetQueryService pets;
+    private final PetCache cache;
+    private final PetSubmissionService submissions;
+    private final PrometheusMetrics metrics;
     private final static Logger logger = LoggerFactory.getLogger(Controller.class);
 
-    public Controller(NodeRPCConnection rpc) {
-        this.proxy = rpc.proxy;
+    // How long, in milliseconds, a wait on a submission is held open before the current status is returned.
+    @Value("${config.submit.waitTimeout:30000}")
+    private long waitTimeout;
+
+    public Controller(NodeRPCConnection rpc, PetUpdateBroadcaster updates, PetQueryService pets, PetCache cache,
+                      PetSubmissionService submissions, PrometheusMetrics metrics) {
+        this.rpc = rpc;
+        this.updates = updates;
+        this.pets = pets;
+        this.cache = cache;
+        this.submissions = submissions;
+        this.metrics = metrics;
     }
 
     @GetMapping(value = "/templateendpoint", produces = "text/plain")
     private String templateendpoint() {
         return "Define an endpoint here.";
     }
-}
\ No newline at end of file
+
+    /**
+     * Lists unconsumed pets, optionally filtered by owner, breeder, species, breed, birth-date range and latest
+     * vaccination or license expiry (all dates inclusive, ISO-8601). Results come back a page at a time in pet id
+     * order; pass the returned {@code next} token as {@code cursor} to fetch the following page.
+     */
+    @GetMapping(value = "/pets", produces = "application/json")
+    private StreamingResponseBody listPets(@RequestParam(required = false) String owner,
+                                           @RequestParam(required = false) String breeder,
+                                           @RequestParam(required = false) String species,
+                                           @RequestParam(required = false) String breed,
+                                           @RequestParam(required = false) String bornAfter,
+                                           @RequestParam(required = false) String bornBefore,
+                                           @RequestParam(required = false) String vaccinationExpiresBy,
+                                           @RequestParam(required = false) String licenseExpiresBy,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size) {
+        PetQueryService.PetFilter filter = new PetQueryService.PetFilter(
+                owner, breeder, species, breed, bornAfter, bornBefore, vaccinationExpiresBy, licenseExpiresBy);
+        return pets.search(filter, cursor, size);
+    }
+
+    /**
+     * The current view of one pet, served from the cache.
+     */
+    @GetMapping(value = "/pets/{petId}", produces = "application/json")
+    private ResponseEntity<PetView> pet(@PathVariable UUID petId) {
+        PetView pet = cache.pet(petId);
+        return pet == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(pet);
+    }
+
+    /**
+     * The pets currently held by an owner, served from the cache.
+     */
+    @GetMapping(value = "/pets/by-owner", produces = "application/json")
+    private List<PetView> petsOwnedBy(@RequestParam String owner) {
+        try {
+            return cache.petsOwnedBy(CordaX500Name.parse(owner));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "owner must be an X.500 name.", e);
+        }
+    }
+
+    /**
+     * Hit and miss counters of the pet cache.
+     */
+    @GetMapping(value = "/cache/stats", produces = "application/json")
+    private Map<String, Map<String, Object>> cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Queues the birth of a pet owned by this node and returns its submission handle at once.
+     */
+    @PostMapping(value = "/pets", consumes = "application/json", produces = "application/json")
+    private ResponseEntity<PetSubmission> registerPet(@RequestBody PetSubmissionService.PetRegistration registration) {
+        return accepted(submissions.register(registration));
+    }
+
+    /**
+     * Queues the transfer of a pet to {@code newOwner} (an X.500 name) and returns its submission handle at once.
+     */
+    @PostMapping(value = "/pets/{petId}/transfer", produces = "application/json")
+    private ResponseEntity<PetSubmission> transferPet(@PathVariable UUID petId, @RequestParam String newOwner) {
+        return accepted(submissions.transfer(petId, newOwner));
+    }
+
+    /**
+     * The current status of a submission.
+     */
+    @GetMapping(value = "/submissions/{id}", produces = "application/json")
+    private ResponseEntity<PetSubmission> submission(@PathVariable UUID id) {
+        PetSubmission submission = submissions.submission(id);
+        return submission == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(submission);
+    }
+
+    /**
+     * Long-polls a submission: answers when it completes or fails, or with its current status after
+     * {@code config.submit.waitTimeout} milliseconds. No servlet thread is held while waiting.
+     */
+    @GetMapping(value = "/submissions/{id}/wait", produces = "application/json")
+    private DeferredResult<ResponseEntity<PetSubmission>> awaitSubmission(@PathVariable UUID id) {
+        PetSubmission submission = submissions.submission(id);
+        DeferredResult<ResponseEntity<PetSubmission>> result = new DeferredResult<>(waitTimeout);
+        if (submission == null) {
+            result.setResult(ResponseEntity.notFound().build());
+            return result;
+        }
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(submission)));
+        submission.done().thenAccept(done -> result.setResult(ResponseEntity.ok(done)));
+        return result;
+    }
+
+    @GetMapping(value = "/submissions/stats", produces = "application/json")
+    private Map<String, Object> submissionStats() {
+        return submissions.stats();
+    }
+
+    private static ResponseEntity<PetSubmission> accepted(PetSubmission submission) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/submissions/" + submission.getId()))
+                .body(submission);
+    }
+
+    /**
+     * Streams pet ownership changes as server-sent events: a snapshot of current pets, then every vault update.
+     */
+    @GetMapping(value = "/pets/updates", produces = "text/event-stream")
+    private SseEmitter petUpdates() throws IOException {
+        return updates.subscribe();
+    }
+
+    /**
+     * Health and load of each pooled RPC connection.
+     */
+    @GetMapping(value = "/rpc/pool", produces = "application/json")
+    private List<Map<String, Object>> rpcPool() {
+        return rpc.metrics();
+    }
+
+    /**
+     * Pet flow step timings and RPC pool gauges in the Prometheus text format.
+     */
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4")
+    private String prometheusMetrics() throws ExecutionException, InterruptedException {
+        return metrics.scrape();
+    }
+}
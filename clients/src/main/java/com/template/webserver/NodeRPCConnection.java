@@ -2,21 +2,43 @@ package com.template.webserver;
 
 import net.corda.client.rpc.CordaRPCClient;
 import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.client.rpc.RPCException;
 import net.corda.core.messaging.CordaRPCOps;
 import net.corda.core.utilities.NetworkHostAndPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
- * Wraps an RPC connection to a Corda node.
+ * Wraps a pool of RPC connections to a Corda node.
+ *
+ * Each call is routed to the healthy connection with the fewest calls in flight, so request threads are not
+ * serialised through a single proxy. A connection that fails with an {@link RPCException} is taken out of rotation.
+ * Reads made through {@link #query} are then retried once on another connection; other calls are not, since an
+ * {@code RPCException} does not say whether the node acted on the call, and retrying a flow start could run the flow
+ * twice. A background health check pings every live connection and reconnects dead
+ * ones, so the webserver recovers by itself when the node restarts.
  *
  * The RPC connection is configured using command line arguments.
  */
 @Component
 public class NodeRPCConnection implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(NodeRPCConnection.class);
+
     // The host of the node we are connecting to.
     @Value("${config.rpc.host}")
     private String host;
@@ -29,20 +51,176 @@ public class NodeRPCConnection implements AutoCloseable {
     // The password for logging into the RPC client.
     @Value("${config.rpc.port}")
     private int rpcPort;
+    // The number of RPC connections kept open to the node.
+    @Value("${config.rpc.poolSize:4}")
+    private int poolSize;
+    // How often, in milliseconds, connections are pinged and dead ones reconnected.
+    @Value("${config.rpc.healthCheckInterval:5000}")
+    private long healthCheckInterval;
 
-    private CordaRPCConnection rpcConnection;
-    CordaRPCOps proxy;
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private ScheduledExecutorService healthCheck;
 
     @PostConstruct
     public void initialiseNodeRPCConnection() {
         NetworkHostAndPort rpcAddress = new NetworkHostAndPort(host, rpcPort);
-        CordaRPCClient rpcClient = new CordaRPCClient(rpcAddress);
-        rpcConnection = rpcClient.start(username, password);
-        proxy = rpcConnection.getProxy();
+        for (int i = 0; i < poolSize; i++) {
+            PooledConnection connection = new PooledConnection(i, new CordaRPCClient(rpcAddress));
+            connection.connect();
+            connections.add(connection);
+        }
+
+        healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rpc-pool-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthCheck.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs an RPC operation on the least-loaded healthy connection. If the connection turns out to be down the
+     * {@link RPCException} is passed on, because the node may already have acted on the call. Use this for anything
+     * that changes the node, such as starting a flow.
+     */
+    public <T> T call(Function<CordaRPCOps, T> operation) {
+        return select().call(operation);
+    }
+
+    /**
+     * Runs a read-only RPC operation, such as a vault query or an identity lookup, on the least-loaded healthy
+     * connection, failing over to another connection once if the first one turns out to be down. The operation must
+     * be safe to run twice.
+     */
+    public <T> T query(Function<CordaRPCOps, T> operation) {
+        PooledConnection connection = select();
+        try {
+            return connection.call(operation);
+        } catch (RPCException e) {
+            logger.warn("RPC connection {} failed, retrying the query on another connection", connection.index, e);
+            return select().call(operation);
+        }
+    }
+
+    /**
+     * Returns the proxy of the least-loaded healthy connection, for long-lived use such as observables. Calls made
+     * through it are not counted in the pool metrics and do not fail over.
+     */
+    public CordaRPCOps proxy() {
+        return select().proxy;
+    }
+
+    private PooledConnection select() {
+        // Start the scan at a rotating offset so that ties are broken round-robin.
+        int start = Math.floorMod(nextConnection.getAndIncrement(), connections.size());
+        PooledConnection best = null;
+        for (int i = 0; i < connections.size(); i++) {
+            PooledConnection candidate = connections.get((start + i) % connections.size());
+            if (candidate.healthy && (best == null || candidate.inFlight.get() < best.inFlight.get())) {
+                best = candidate;
+            }
+        }
+        if (best == null) throw new IllegalStateException("No RPC connection to " + host + ":" + rpcPort + " is available.");
+        return best;
+    }
+
+    private void checkHealth() {
+        for (PooledConnection connection : connections) {
+            if (connection.healthy) {
+                try {
+                    connection.proxy.currentNodeTime();
+                } catch (RuntimeException e) {
+                    logger.warn("RPC connection {} failed its health check", connection.index, e);
+                    connection.failures.incrementAndGet();
+                    connection.markDown();
+                }
+            } else {
+                connection.connect();
+            }
+        }
+    }
+
+    /**
+     * Per-connection health and load counters.
+     */
+    public List<Map<String, Object>> metrics() {
+        List<Map<String, Object>> metrics = new ArrayList<>(connections.size());
+        for (PooledConnection connection : connections) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("connection", connection.index);
+            entry.put("healthy", connection.healthy);
+            entry.put("inFlight", connection.inFlight.get());
+            entry.put("calls", connection.calls.get());
+            entry.put("failures", connection.failures.get());
+            entry.put("reconnects", connection.reconnects.get());
+            metrics.add(entry);
+        }
+        return metrics;
     }
 
     @PreDestroy
     public void close() {
-        rpcConnection.notifyServerAndClose();
+        if (healthCheck != null) healthCheck.shutdownNow();
+        for (PooledConnection connection : connections) connection.close();
+    }
+
+    private final class PooledConnection {
+        private final int index;
+        private final CordaRPCClient client;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong reconnects = new AtomicLong();
+        private volatile CordaRPCConnection rpcConnection;
+        private volatile CordaRPCOps proxy;
+        private volatile boolean healthy;
+        private boolean everConnected;
+
+        private PooledConnection(int index, CordaRPCClient client) {
+            this.index = index;
+            this.client = client;
+        }
+
+        private synchronized void connect() {
+            try {
+                rpcConnection = client.start(username, password);
+                proxy = rpcConnection.getProxy();
+                if (everConnected) reconnects.incrementAndGet();
+                everConnected = true;
+                healthy = true;
+            } catch (RuntimeException e) {
+                logger.warn("Could not open RPC connection {} to {}:{}", index, host, rpcPort, e);
+            }
+        }
+
+        private <T> T call(Function<CordaRPCOps, T> operation) {
+            inFlight.incrementAndGet();
+            calls.incrementAndGet();
+            try {
+                return operation.apply(proxy);
+            } catch (RPCException e) {
+                failures.incrementAndGet();
+                markDown();
+                throw e;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private synchronized void markDown() {
+            if (!healthy) return;
+            healthy = false;
+            try {
+                rpcConnection.forceClose();
+            } catch (RuntimeException e) {
+                logger.debug("Error closing failed RPC connection {}", index, e);
+            }
+        }
+
+        private synchronized void close() {
+            if (healthy) rpcConnection.notifyServerAndClose();
+            healthy = false;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package com.template.webserver;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.petchain.schemas.PetSchemaV1;
+import net.petchain.states.PetState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Read-through cache of the pet lookups that make up most webserver traffic: a pet by id, and the pets an owner holds.
+ *
+ * Both caches are bounded by size and by time since write. Entries are evicted as soon as the shared
+ * {@link PetVaultFeed} reports that a pet was consumed or produced, so a cached view is never older than the last
+ * ownership change the feed has delivered. If the feed has to resubscribe, updates may have been missed and both
+ * caches are cleared.
+ */
+@Component
+public class PetCache {
+    // The most pets held in the by-id cache.
+    @Value("${config.cache.maxPets:10000}")
+    private long maxPets;
+    // The most owners held in the by-owner cache.
+    @Value("${config.cache.maxOwners:1000}")
+    private long maxOwners;
+    // The most pets cached for a single owner. Larger holdings are served from GET /pets?owner=.
+    @Value("${config.cache.maxPetsPerOwner:200}")
+    private int maxPetsPerOwner;
+    // How long, in seconds, an entry may live even if no vault update evicts it.
+    @Value("${config.cache.expireAfterWrite:300}")
+    private long expireAfterWrite;
+
+    private final NodeRPCConnection rpc;
+    private final PetVaultFeed feed;
+    private LoadingCache<UUID, PetView> byId;
+    private LoadingCache<String, List<PetView>> byOwner;
+
+    public PetCache(NodeRPCConnection rpc, PetVaultFeed feed) {
+        this.rpc = rpc;
+        this.feed = feed;
+    }
+
+    @PostConstruct
+    public void start() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxPets)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS)
+                .recordStats()
+                .build(this::loadPet);
+        byOwner = Caffeine.newBuilder()
+                .maximumSize(maxOwners)
+                .expireAfterWrite(expireAfterWrite, TimeUnit.SECONDS)
+                .recordStats()
+                .build(this::loadOwnerPets);
+        feed.addListener(this::evict);
+        feed.addResubscribeListener(this::clear);
+    }
+
+    /**
+     * The current view of a pet, or {@code null} if no unconsumed pet has that id. Misses are not cached.
+     */
+    public PetView pet(UUID petId) {
+        return byId.get(petId);
+    }
+
+    /**
+     * Up to {@code config.cache.maxPetsPerOwner} pets currently held by {@code owner}.
+     */
+    public List<PetView> petsOwnedBy(CordaX500Name owner) {
+        return byOwner.get(owner.toString());
+    }
+
+    private PetView loadPet(UUID petId) {
+        List<StateAndRef<PetState>> states = rpc.query(proxy -> proxy.vaultQueryBy(
+                new QueryCriteria.LinearStateQueryCriteria(null, Collections.singletonList(petId), null, Vault.StateStatus.UNCONSUMED),
+                new PageSpecification(DEFAULT_PAGE_NUM, 1),
+                new Sort(Collections.emptySet()),
+                PetState.class)).getStates();
+        return states.isEmpty() ? null : PetView.of(states.get(0));
+    }
+
+    private List<PetView> loadOwnerPets(String owner) throws NoSuchFieldException {
+        @SuppressWarnings("unchecked")
+        QueryCriteria byOwnerCriteria = new QueryCriteria.VaultCustomQueryCriteria(
+                Builder.equal(PetSchemaV1.PersistentPet.class.getDeclaredField("owner"), owner));
+        List<StateAndRef<PetState>> states = rpc.query(proxy -> proxy.vaultQueryBy(
+                new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED).and(byOwnerCriteria),
+                new PageSpecification(DEFAULT_PAGE_NUM, maxPetsPerOwner),
+                new Sort(Collections.emptySet()),
+                PetState.class)).getStates();
+        List<PetView> pets = new ArrayList<>(states.size());
+        for (StateAndRef<PetState> state : states) pets.add(PetView.of(state));
+        return Collections.unmodifiableList(pets);
+    }
+
+    private void evict(Vault.Update<PetState> update) {
+        for (StateAndRef<PetState> state : update.getConsumed()) evict(state.getState().getData());
+        for (StateAndRef<PetState> state : update.getProduced()) evict(state.getState().getData());
+    }
+
+    private void evict(PetState pet) {
+        byId.invalidate(pet.getLinearId().getId());
+        byOwner.invalidate(pet.getOwner().getName().toString());
+    }
+
+    public void clear() {
+        byId.invalidateAll();
+        byOwner.invalidateAll();
+    }
+
+    /**
+     * Hit and miss counters for both caches.
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("byId", stats(byId.stats(), byId.estimatedSize()));
+        stats.put("byOwner", stats(byOwner.stats(), byOwner.estimatedSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(CacheStats stats, long size) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("size", size);
+        entry.put("hits", stats.hitCount());
+        entry.put("misses", stats.missCount());
+        entry.put("hitRate", stats.hitRate());
+        entry.put("loads", stats.loadCount());
+        entry.put("loadFailures", stats.loadFailureCount());
+        entry.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        entry.put("evictions", stats.evictionCount());
+        return entry;
+    }
+}
@@ -0,0 +1,215 @@
+package com.template.webserver;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.CriteriaExpression;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.petchain.schemas.PetSchemaV1;
+import net.petchain.states.PetState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Answers pet searches one page at a time.
+ *
+ * Filters become custom criteria on the indexed {@link PetSchemaV1.PersistentPet} columns, so the node only loads the
+ * matching pets. Pages are keyed on pet id rather than on offset: results are sorted by pet id and the continuation
+ * token carries the last id returned, so fetching page n costs the same as fetching page 1. The page is written to
+ * the response with a streaming JSON generator instead of being rendered to a string first.
+ */
+@Component
+public class PetQueryService {
+    private static final Field PET_ID = persistentPetField("petId");
+    private static final Field OWNER = persistentPetField("owner");
+    private static final Field BREEDER = persistentPetField("breeder");
+    private static final Field SPECIES = persistentPetField("species");
+    private static final Field BREED = persistentPetField("breed");
+    private static final Field BIRTH_DATE = persistentPetField("birthDate");
+    private static final Field RABIES_EXPIRE_DATE = persistentPetField("rabiesExpireDate");
+    private static final Field MUNI_EXPIRE_DATE = persistentPetField("muniExpireDate");
+
+    private static final Sort BY_PET_ID = new Sort(Collections.singleton(new Sort.SortColumn(
+            new SortAttribute.Custom(PetSchemaV1.PersistentPet.class, "petId"), Sort.Direction.ASC)));
+
+    // The page size used when a request does not ask for one.
+    @Value("${config.query.defaultPageSize:50}")
+    private int defaultPageSize;
+    // The largest page a request may ask for.
+    @Value("${config.query.maxPageSize:500}")
+    private int maxPageSize;
+
+    private final NodeRPCConnection rpc;
+    private final ObjectMapper mapper;
+
+    public PetQueryService(NodeRPCConnection rpc, ObjectMapper mapper) {
+        this.rpc = rpc;
+        this.mapper = mapper;
+    }
+
+    /**
+     * A search over unconsumed pets. Every filter is optional; {@code null} means "any".
+     */
+    public static class PetFilter {
+        final String owner;
+        final String breeder;
+        final String species;
+        final String breed;
+        final String bornAfter;
+        final String bornBefore;
+        // Pets whose vaccination or license expires on or before the date. Pets without one do not match.
+        final String vaccinationExpiresBy;
+        final String licenseExpiresBy;
+
+        public PetFilter(String owner, String breeder, String species, String breed, String bornAfter, String bornBefore,
+                         String vaccinationExpiresBy, String licenseExpiresBy) {
+            this.owner = owner == null ? null : x500(owner, "owner");
+            this.breeder = breeder == null ? null : x500(breeder, "breeder");
+            this.species = species;
+            this.breed = breed;
+            this.bornAfter = bornAfter == null ? null : isoDate(bornAfter, "bornAfter");
+            this.bornBefore = bornBefore == null ? null : isoDate(bornBefore, "bornBefore");
+            this.vaccinationExpiresBy = vaccinationExpiresBy == null ? null : isoDate(vaccinationExpiresBy, "vaccinationExpiresBy");
+            this.licenseExpiresBy = licenseExpiresBy == null ? null : isoDate(licenseExpiresBy, "licenseExpiresBy");
+        }
+    }
+
+    /**
+     * One page of a search: up to the requested number of pets, and the token of the next page or {@code null} on the
+     * last page. Jackson renders it as {@code {"pets": [...], "next": "<token>"}}.
+     */
+    public static final class Page {
+        private final List<StateAndRef<PetState>> states;
+        private final String next;
+
+        private Page(List<StateAndRef<PetState>> states, String next) {
+            this.states = states;
+            this.next = next;
+        }
+
+        public List<PetView> getPets() {
+            List<PetView> pets = new ArrayList<>(states.size());
+            for (StateAndRef<PetState> state : states) pets.add(PetView.of(state));
+            return pets;
+        }
+
+        public String getNext() {
+            return next;
+        }
+    }
+
+    /**
+     * Fetches the page following {@code cursor} (or the first page). Blocks on the RPC call.
+     */
+    public Page page(PetFilter filter, String cursor, Integer pageSize) {
+        final int size = pageSize == null ? defaultPageSize : pageSize;
+        if (size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + maxPageSize);
+        }
+
+        QueryCriteria criteria = criteria(filter, cursor == null ? null : decodeCursor(cursor));
+        // One extra row tells us whether there is a next page without a second query.
+        final List<StateAndRef<PetState>> states = rpc.query(proxy -> proxy.vaultQueryBy(
+                criteria, new PageSpecification(DEFAULT_PAGE_NUM, size + 1), BY_PET_ID, PetState.class)).getStates();
+        if (states.size() <= size) return new Page(states, null);
+        return new Page(states.subList(0, size), encodeCursor(states.get(size - 1).getState().getData().getLinearId().getId()));
+    }
+
+    /**
+     * Fetches the page following {@code cursor} (or the first page) and returns a body that streams it as
+     * {@code {"pets": [...], "next": "<token>"}}. {@code next} is null on the last page.
+     */
+    public StreamingResponseBody search(PetFilter filter, String cursor, Integer pageSize) {
+        final Page page = page(filter, cursor, pageSize);
+        return out -> {
+            try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("pets");
+                for (StateAndRef<PetState> state : page.states) {
+                    mapper.writeValue(json, PetView.of(state));
+                }
+                json.writeEndArray();
+                json.writeStringField("next", page.next);
+                json.writeEndObject();
+            }
+        };
+    }
+
+    private static QueryCriteria criteria(PetFilter filter, UUID after) {
+        QueryCriteria criteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED);
+        if (filter.owner != null) criteria = criteria.and(custom(Builder.equal(OWNER, filter.owner)));
+        if (filter.breeder != null) criteria = criteria.and(custom(Builder.equal(BREEDER, filter.breeder)));
+        if (filter.species != null) criteria = criteria.and(custom(Builder.equal(SPECIES, filter.species)));
+        if (filter.breed != null) criteria = criteria.and(custom(Builder.equal(BREED, filter.breed)));
+        // Birth dates are ISO-8601 strings, so their lexical order is their chronological order.
+        if (filter.bornAfter != null) criteria = criteria.and(custom(Builder.greaterThanOrEqual(BIRTH_DATE, filter.bornAfter)));
+        if (filter.bornBefore != null) criteria = criteria.and(custom(Builder.lessThanOrEqual(BIRTH_DATE, filter.bornBefore)));
+        if (filter.vaccinationExpiresBy != null) criteria = criteria.and(custom(Builder.lessThanOrEqual(RABIES_EXPIRE_DATE, filter.vaccinationExpiresBy)));
+        if (filter.licenseExpiresBy != null) criteria = criteria.and(custom(Builder.lessThanOrEqual(MUNI_EXPIRE_DATE, filter.licenseExpiresBy)));
+        if (after != null) criteria = criteria.and(custom(Builder.greaterThan(PET_ID, after)));
+        return criteria;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryCriteria custom(CriteriaExpression<?, Boolean> expression) {
+        return new QueryCriteria.VaultCustomQueryCriteria(expression);
+    }
+
+    static String encodeCursor(UUID lastPetId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastPetId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static UUID decodeCursor(String cursor) {
+        try {
+            return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.", e);
+        }
+    }
+
+    private static String x500(String name, String parameter) {
+        try {
+            // Normalise to the form PetState.generateMappedObject stores.
+            return CordaX500Name.parse(name).toString();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, parameter + " must be an X.500 name.", e);
+        }
+    }
+
+    private static String isoDate(String date, String parameter) {
+        try {
+            return LocalDate.parse(date).toString();
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, parameter + " must be an ISO-8601 date.", e);
+        }
+    }
+
+    private static Field persistentPetField(String name) {
+        try {
+            return PetSchemaV1.PersistentPet.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.template.webserver;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The handle of a registration or transfer submitted through {@link PetSubmissionService}.
+ *
+ * A submission is PENDING while it waits to be coalesced into a flow, SUBMITTED once that flow has been started and
+ * then either COMPLETED or FAILED. Jackson renders it as the status body returned to clients.
+ */
+public class PetSubmission {
+    public enum Status { PENDING, SUBMITTED, COMPLETED, FAILED }
+
+    private final UUID id = UUID.randomUUID();
+    private final String kind;
+    private final UUID petId;
+    private final Instant acceptedAt = Instant.now();
+    private final CompletableFuture<PetSubmission> done = new CompletableFuture<>();
+    private volatile Status status = Status.PENDING;
+    private volatile String flowId;
+    private volatile String transactionId;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    PetSubmission(String kind, UUID petId) {
+        this.kind = kind;
+        this.petId = petId;
+    }
+
+    void submitted(String flowId) {
+        this.flowId = flowId;
+        this.status = Status.SUBMITTED;
+    }
+
+    void completed(String transactionId) {
+        this.transactionId = transactionId;
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+        done.complete(this);
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+        done.complete(this);
+    }
+
+    /**
+     * Completes once the submission is COMPLETED or FAILED.
+     */
+    CompletableFuture<PetSubmission> done() {
+        return done;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public UUID getPetId() {
+        return petId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getFlowId() {
+        return flowId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getAcceptedAt() {
+        return acceptedAt.toString();
+    }
+
+    public String getFinishedAt() {
+        return finishedAt == null ? null : finishedAt.toString();
+    }
+}
@@ -0,0 +1,457 @@
+package com.template.webserver;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.template.flows.BatchBirthFlow;
+import com.template.flows.NotaryPoolFlow;
+import com.template.flows.NotarySelector;
+import com.template.flows.TransferPetFlow;
+import net.corda.client.rpc.RPCException;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.FlowHandle;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.petchain.contracts.PetValidator;
+import net.petchain.states.PetState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_SIZE;
+
+/**
+ * Accepts pet registrations and transfers without holding a request thread while they are notarised.
+ *
+ * Each request is queued and answered at once with a {@link PetSubmission} handle. Every {@code config.submit.linger}
+ * milliseconds the queues are drained: pending registrations become one {@link BatchBirthFlow} transaction, and
+ * pending transfers to the same new owner become one multi-pet {@link TransferPetFlow}, up to
+ * {@code config.submit.maxBatch} pets per flow. On a network with several notaries, pets are also grouped by the
+ * notary {@link NotarySelector} shards them to, since one transaction has one notary; the pool is the node's own,
+ * fetched once with {@link NotaryPoolFlow} before the first drain. Flows are started over RPC and their results are
+ * picked up by callback, so no thread waits on a flow. If a coalesced flow fails, its pets are retried one flow each
+ * so that a single bad request cannot fail its neighbours; births the failed flow did record are not retried.
+ *
+ * Handles are kept for {@code config.submit.retention} seconds after they are accepted.
+ */
+@Component
+public class PetSubmissionService {
+    private final static Logger logger = LoggerFactory.getLogger(PetSubmissionService.class);
+
+    // How long, in milliseconds, requests wait to be coalesced.
+    @Value("${config.submit.linger:50}")
+    private long linger;
+    // The most pets coalesced into one flow.
+    @Value("${config.submit.maxBatch:200}")
+    private int maxBatch;
+    // The most submissions that may be pending or running at once. Further requests are refused with 503.
+    @Value("${config.submit.maxInFlight:20000}")
+    private int maxInFlight;
+    // How long, in seconds, submission handles can be looked up.
+    @Value("${config.submit.retention:3600}")
+    private long retention;
+
+    /**
+     * The body of a registration request.
+     */
+    public static class PetRegistration {
+        public String petName;
+        public String species;
+        public String breed;
+        public String sex;
+        public String color;
+        public String birthDate;
+    }
+
+    private static final class PendingBirth {
+        final PetSubmission submission;
+        final PetState pet;
+
+        PendingBirth(PetSubmission submission, PetState pet) {
+            this.submission = submission;
+            this.pet = pet;
+        }
+    }
+
+    private static final class PendingTransfer {
+        final PetSubmission submission;
+        final UniqueIdentifier petId;
+        final Party newOwner;
+
+        PendingTransfer(PetSubmission submission, UniqueIdentifier petId, Party newOwner) {
+            this.submission = submission;
+            this.petId = petId;
+            this.newOwner = newOwner;
+        }
+    }
+
+    private static final Sort BY_RECORDED_TIME = new Sort(Collections.singleton(new Sort.SortColumn(
+            new SortAttribute.Standard(Sort.VaultStateAttribute.RECORDED_TIME), Sort.Direction.ASC)));
+
+    private final NodeRPCConnection rpc;
+    private final ConcurrentLinkedQueue<PendingBirth> births = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<PendingTransfer> transfers = new ConcurrentLinkedQueue<>();
+    private final Map<CordaX500Name, Party> parties = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ScheduledExecutorService coalescer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pet-submission-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Cache<UUID, PetSubmission> submissions;
+    private volatile Party us;
+    // How many notaries the node shards pets over; 0 until it has been asked.
+    private volatile int notaries;
+
+    public PetSubmissionService(NodeRPCConnection rpc) {
+        this.rpc = rpc;
+    }
+
+    @PostConstruct
+    public void start() {
+        submissions = Caffeine.newBuilder().expireAfterWrite(retention, TimeUnit.SECONDS).build();
+        coalescer.scheduleWithFixedDelay(this::drain, linger, linger, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        coalescer.shutdownNow();
+    }
+
+    /**
+     * Queues the birth of a pet owned and bred by this node.
+     */
+    public PetSubmission register(PetRegistration registration) {
+        if (isBlank(registration.petName)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "petName is required.");
+        }
+        // The contract's own Born rules, so a pet it would reject never joins a batch and fails its neighbours.
+        String violation = PetValidator.bornAttributesViolation(registration.species, registration.breed,
+                registration.color, registration.sex, registration.birthDate);
+        if (violation != null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, violation);
+        Party breeder = us();
+        PetState pet = new PetState(breeder, registration.petName, registration.species, registration.breed,
+                registration.sex, registration.color, registration.birthDate, breeder);
+        PetSubmission submission = accept("register", pet.getLinearId().getId());
+        births.add(new PendingBirth(submission, pet));
+        return submission;
+    }
+
+    /**
+     * Queues the transfer of a pet held by this node to {@code newOwner}.
+     */
+    public PetSubmission transfer(UUID petId, String newOwner) {
+        Party party = party(newOwner);
+        String violation = PetValidator.newOwnerViolation(us(), party);
+        if (violation != null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, violation);
+        PetSubmission submission = accept("transfer", petId);
+        transfers.add(new PendingTransfer(submission, new UniqueIdentifier(null, petId), party));
+        return submission;
+    }
+
+    public PetSubmission submission(UUID id) {
+        return submissions.getIfPresent(id);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight.get());
+        stats.put("pendingRegistrations", births.size());
+        stats.put("pendingTransfers", transfers.size());
+        return stats;
+    }
+
+    private PetSubmission accept(String kind, UUID petId) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many submissions in flight.");
+        }
+        PetSubmission submission = new PetSubmission(kind, petId);
+        submission.done().thenRun(inFlight::decrementAndGet);
+        submissions.put(submission.getId(), submission);
+        return submission;
+    }
+
+    private void drain() {
+        try {
+            // Fetched before anything is polled, so that a failure leaves no submission half-drained.
+            if (notaries < 1 && !(births.isEmpty() && transfers.isEmpty()) && !fetchNotaryPool()) return;
+            drainBirths();
+            drainTransfers();
+        } catch (RuntimeException e) {
+            // Sharding makes no RPC calls and start fails its own handles, so this is a bug; keep the schedule alive.
+            logger.error("Pet submission coalescer failed", e);
+        }
+    }
+
+    /**
+     * Fetches the size of the node's notary pool. If it cannot be fetched, fails every queued submission and returns
+     * false; the next drain asks again.
+     */
+    private boolean fetchNotaryPool() {
+        try {
+            notaries = notaryPool().size();
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("Could not fetch the node's notary pool; failing the queued pet submissions", e);
+            String reason = "Could not fetch the node's notary pool: " + e.getMessage();
+            PendingBirth birth;
+            while ((birth = births.poll()) != null) birth.submission.failed(reason);
+            PendingTransfer transfer;
+            while ((transfer = transfers.poll()) != null) transfer.submission.failed(reason);
+            return false;
+        }
+    }
+
+    private void drainBirths() {
+        Map<Integer, List<PendingBirth>> byShard = new LinkedHashMap<>();
+        PendingBirth next;
+        while ((next = births.poll()) != null) {
+            Integer shard = shard(next.pet.getLinearId());
+            List<PendingBirth> batch = byShard.computeIfAbsent(shard, s -> new ArrayList<>());
+            batch.add(next);
+            if (batch.size() == maxBatch) {
+                startBirths(byShard.remove(shard), true);
+            }
+        }
+        for (List<PendingBirth> batch : byShard.values()) startBirths(batch, true);
+    }
+
+    private void drainTransfers() {
+        Map<List<Object>, List<PendingTransfer>> byNewOwnerAndShard = new LinkedHashMap<>();
+        PendingTransfer next;
+        while ((next = transfers.poll()) != null) {
+            List<Object> key = Arrays.asList(next.newOwner, shard(next.petId));
+            List<PendingTransfer> batch = byNewOwnerAndShard.computeIfAbsent(key, k -> new ArrayList<>());
+            batch.add(next);
+            if (batch.size() == maxBatch) {
+                startTransfers(byNewOwnerAndShard.remove(key), true);
+            }
+        }
+        for (List<PendingTransfer> batch : byNewOwnerAndShard.values()) startTransfers(batch, true);
+    }
+
+    /**
+     * The notary shard of a pet. A pet born before the last notary joined may sit on another notary than its shard;
+     * a coalesced transfer that mixes notaries fails and is retried one pet per flow.
+     */
+    private int shard(UniqueIdentifier petId) {
+        return NotarySelector.shard(petId.getId(), notaries);
+    }
+
+    private List<Party> notaryPool() {
+        try {
+            return rpc.call(proxy -> proxy.startFlowDynamic(NotaryPoolFlow.class)).getReturnValue().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the node's notary pool.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not fetch the node's notary pool.", e.getCause());
+        }
+    }
+
+    private void startBirths(List<PendingBirth> batch, boolean retrySingly) {
+        List<PetState> pets = new ArrayList<>(batch.size());
+        List<PetSubmission> handles = new ArrayList<>(batch.size());
+        for (PendingBirth birth : batch) {
+            pets.add(birth.pet);
+            handles.add(birth.submission);
+        }
+        // Pets are grouped by the node's own shards, so a batch is normally one transaction on one notary. If the
+        // pool changed since it was fetched, the flow splits the batch, and each pet is matched to its transaction.
+        start(handles, proxy -> proxy.startFlowDynamic(BatchBirthFlow.class, pets, pets.size()),
+                txIds -> txIds.size() == 1 ? Collections.nCopies(pets.size(), txIds.get(0)) : birthTransactions(pets, txIds),
+                () -> {
+                    if (!retrySingly || batch.size() < 2) return false;
+                    retryBirthsSingly(batch, pets);
+                    return true;
+                });
+    }
+
+    /**
+     * Resubmits the pets of a failed birth one flow each. A split batch records one transaction per notary, so some
+     * of its pets may be on the ledger already; those are completed with their transaction instead of being born
+     * twice.
+     */
+    private void retryBirthsSingly(List<PendingBirth> batch, List<PetState> pets) {
+        Map<UniqueIdentifier, SecureHash> recorded;
+        try {
+            recorded = bornIn(pets);
+        } catch (RuntimeException e) {
+            logger.warn("Could not check which of {} failed births were recorded", batch.size(), e);
+            for (PendingBirth birth : batch) birth.submission.failed("The birth failed and its pets could not be checked; check the pet before resubmitting.");
+            return;
+        }
+        for (PendingBirth birth : batch) {
+            SecureHash txId = recorded.get(birth.pet.getLinearId());
+            if (txId != null) birth.submission.completed(txId.toString());
+            else startBirths(Collections.singletonList(birth), false);
+        }
+    }
+
+    private void startTransfers(List<PendingTransfer> batch, boolean retrySingly) {
+        List<UniqueIdentifier> petIds = new ArrayList<>(batch.size());
+        List<PetSubmission> handles = new ArrayList<>(batch.size());
+        for (PendingTransfer transfer : batch) {
+            petIds.add(transfer.petId);
+            handles.add(transfer.submission);
+        }
+        Party newOwner = batch.get(0).newOwner;
+        start(handles, proxy -> proxy.startFlowDynamic(TransferPetFlow.class, petIds, newOwner),
+                txId -> Collections.nCopies(petIds.size(), txId),
+                () -> {
+                    if (retrySingly && batch.size() > 1) {
+                        for (PendingTransfer transfer : batch) startTransfers(Collections.singletonList(transfer), false);
+                        return true;
+                    }
+                    return false;
+                });
+    }
+
+    /**
+     * Looks up which of a split birth's transactions recorded each pet.
+     */
+    private List<SecureHash> birthTransactions(List<PetState> pets, List<SecureHash> txIds) {
+        Map<UniqueIdentifier, SecureHash> bornIn = bornIn(pets);
+        List<SecureHash> perPet = new ArrayList<>(pets.size());
+        for (PetState pet : pets) {
+            SecureHash txId = bornIn.get(pet.getLinearId());
+            if (txId == null || !txIds.contains(txId)) throw new IllegalStateException("Pet " + pet.getLinearId() + " is not in any of " + txIds + ".");
+            perPet.add(txId);
+        }
+        return perPet;
+    }
+
+    /**
+     * The transaction that recorded each of {@code pets} first, for those the vault holds. A pet may have been
+     * transferred since, so its states are read in recorded order and paged until all have been seen.
+     */
+    private Map<UniqueIdentifier, SecureHash> bornIn(List<PetState> pets) {
+        List<UUID> ids = new ArrayList<>(pets.size());
+        for (PetState pet : pets) ids.add(pet.getLinearId().getId());
+        QueryCriteria anyState = new QueryCriteria.LinearStateQueryCriteria(null, ids, null, Vault.StateStatus.ALL);
+        int pageSize = Math.max(DEFAULT_PAGE_SIZE, ids.size());
+        Map<UniqueIdentifier, SecureHash> bornIn = new HashMap<>(pets.size() * 2);
+        for (int pageNumber = DEFAULT_PAGE_NUM; ; pageNumber++) {
+            PageSpecification page = new PageSpecification(pageNumber, pageSize);
+            List<StateAndRef<PetState>> states = rpc.query(proxy -> proxy.vaultQueryBy(
+                    anyState, page, BY_RECORDED_TIME, PetState.class).getStates());
+            for (StateAndRef<PetState> state : states) {
+                bornIn.putIfAbsent(state.getState().getData().getLinearId(), state.getRef().getTxhash());
+            }
+            if (states.size() < pageSize) return bornIn;
+        }
+    }
+
+    /**
+     * Starts a flow for {@code handles} and resolves them from its result by callback. Runs on the coalescer thread.
+     * {@code transactionIds} maps the result to the transaction of each handle, in order. On failure {@code retry}
+     * is given the chance to resubmit the handles; if it declines they are failed.
+     */
+    private <T> void start(List<PetSubmission> handles,
+                           Function<CordaRPCOps, FlowHandle<T>> startFlow,
+                           Function<T, List<SecureHash>> transactionIds,
+                           BooleanSupplier retry) {
+        FlowHandle<T> flow;
+        try {
+            flow = rpc.call(startFlow);
+        } catch (RPCException e) {
+            // The node may have started the flow before the connection failed, so resubmitting could run it twice.
+            logger.warn("Lost the RPC connection while starting a flow for {} pet submissions", handles.size(), e);
+            for (PetSubmission handle : handles) handle.failed("Lost the connection to the node while submitting; check the pet before resubmitting.");
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Could not start flow for {} pet submissions", handles.size(), e);
+            if (!retry.getAsBoolean()) for (PetSubmission handle : handles) handle.failed(e.getMessage());
+            return;
+        }
+
+        String flowId = flow.getId().getUuid().toString();
+        for (PetSubmission handle : handles) handle.submitted(flowId);
+        flow.getReturnValue().then((CordaFuture<T> result) -> {
+            final T value;
+            try {
+                value = result.get();
+            } catch (Exception e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                logger.warn("Flow {} for {} pet submissions failed", flowId, handles.size(), cause);
+                // Retrying makes RPC calls, which must not happen on the RPC client's own callback thread.
+                coalescer.execute(() -> {
+                    if (!retry.getAsBoolean()) for (PetSubmission handle : handles) handle.failed(cause.getMessage());
+                });
+                return null;
+            }
+            // Matching a split birth to its transactions makes RPC calls too.
+            coalescer.execute(() -> {
+                List<SecureHash> txIds;
+                try {
+                    txIds = transactionIds.apply(value);
+                } catch (RuntimeException e) {
+                    // The flow succeeded, so the pets must not be resubmitted.
+                    logger.warn("Flow {} succeeded, but its transactions could not be matched to its pets", flowId, e);
+                    for (PetSubmission handle : handles) handle.failed("Recorded, but the transaction could not be looked up: " + e.getMessage());
+                    return;
+                }
+                for (int i = 0; i < handles.size(); i++) handles.get(i).completed(txIds.get(i).toString());
+            });
+            return null;
+        });
+    }
+
+    private Party us() {
+        if (us == null) us = rpc.query(proxy -> proxy.nodeInfo().getLegalIdentities().get(0));
+        return us;
+    }
+
+    private Party party(String name) {
+        CordaX500Name x500;
+        try {
+            x500 = CordaX500Name.parse(name);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "newOwner must be an X.500 name.", e);
+        }
+        Party party = parties.get(x500);
+        if (party == null) {
+            party = rpc.query(proxy -> proxy.wellKnownPartyFromX500Name(x500));
+            if (party == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown party " + name + ".");
+            parties.put(x500, party);
+        }
+        return party;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,199 @@
+package com.template.webserver;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.petchain.states.PetState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Pushes PetState ownership changes to HTTP subscribers as server-sent events.
+ *
+ * A subscriber first receives a "snapshot" event holding the current pets (up to {@code config.sse.snapshotSize}),
+ * then an "update" event for every vault update. Updates come from the shared {@link PetVaultFeed}; each one is
+ * rendered once and queued for every subscriber without blocking the feed. Each subscriber has its own queue of up to
+ * {@code config.sse.buffer} updates, drained by its own sender thread while it has updates waiting, so a client that
+ * reads slowly only holds up its own stream. A subscriber whose queue overflows is closed, and the client reconnects.
+ * Servlet mode only; {@link ReactiveController} streams the same events in reactive mode.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PetUpdateBroadcaster {
+    private final static Logger logger = LoggerFactory.getLogger(PetUpdateBroadcaster.class);
+
+    // How many pets a new subscriber receives in its snapshot event.
+    @Value("${config.sse.snapshotSize:200}")
+    private int snapshotSize;
+    // How long, in milliseconds, a subscription stays open before the client must reconnect.
+    @Value("${config.sse.timeout:1800000}")
+    private long timeout;
+    // How many updates a subscriber may fall behind before it is closed.
+    @Value("${config.sse.buffer:1024}")
+    private int buffer;
+
+    /**
+     * One subscriber's stream and the updates queued for it. {@code sending} is set while a sender thread owns the
+     * emitter, or while the snapshot is being sent, so only one thread writes to it at a time and in order.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter = new SseEmitter(timeout);
+        private final BlockingQueue<Map<String, Object>> pending = new ArrayBlockingQueue<>(buffer);
+        private final AtomicBoolean sending = new AtomicBoolean(true);
+    }
+
+    private final NodeRPCConnection rpc;
+    private final PetVaultFeed feed;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Sender threads exist only while a subscriber has updates waiting; a client blocked on a slow write holds one.
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "pet-update-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PetUpdateBroadcaster(NodeRPCConnection rpc, PetVaultFeed feed) {
+        this.rpc = rpc;
+        this.feed = feed;
+    }
+
+    @PostConstruct
+    public void start() {
+        feed.addListener(update -> broadcast(render(update)));
+    }
+
+    /**
+     * Registers a new subscriber and sends it the snapshot. The subscriber is registered first, so no update between
+     * the snapshot query and registration is lost; updates are queued until the snapshot has been sent, and clients
+     * reconcile by state ref.
+     */
+    public SseEmitter subscribe() throws IOException {
+        Subscriber subscriber = new Subscriber();
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        try {
+            List<PetView> pets = rpc.query(proxy -> snapshot(proxy, snapshotSize));
+            subscriber.emitter.send(SseEmitter.event().name("snapshot").data(pets));
+        } catch (IOException | RuntimeException e) {
+            subscribers.remove(subscriber);
+            throw e;
+        }
+        subscriber.sending.set(false);
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    /**
+     * The body of a "snapshot" event: up to {@code size} current pets.
+     */
+    static List<PetView> snapshot(CordaRPCOps proxy, int size) {
+        List<StateAndRef<PetState>> states = proxy.vaultQueryBy(
+                new QueryCriteria.VaultQueryCriteria(),
+                new PageSpecification(DEFAULT_PAGE_NUM, size),
+                new Sort(Collections.emptySet()),
+                PetState.class).getStates();
+        List<PetView> pets = new ArrayList<>(states.size());
+        for (StateAndRef<PetState> pet : states) pets.add(PetView.of(pet));
+        return pets;
+    }
+
+    /**
+     * The body of an "update" event: the pets produced and the refs of those consumed.
+     */
+    static Map<String, Object> render(Vault.Update<PetState> update) {
+        List<PetView> produced = new ArrayList<>(update.getProduced().size());
+        for (StateAndRef<PetState> pet : update.getProduced()) produced.add(PetView.of(pet));
+        List<String> consumed = new ArrayList<>(update.getConsumed().size());
+        for (StateAndRef<PetState> pet : update.getConsumed()) consumed.add(pet.getRef().toString());
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("produced", produced);
+        event.put("consumed", consumed);
+        return event;
+    }
+
+    /**
+     * Queues an update for every subscriber. Runs on the feed's thread, so it never waits on a client.
+     */
+    private void broadcast(Map<String, Object> event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.offer(event)) {
+                schedule(subscriber);
+            } else {
+                logger.info("Closing a pet update stream that fell more than {} updates behind", buffer);
+                close(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Starts a sender for the subscriber unless one is already running or the snapshot is still being sent.
+     */
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        Map<String, Object> event;
+        while ((event = subscriber.pending.poll()) != null) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().name("update").data(event));
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone away.
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            }
+        }
+        subscriber.sending.set(false);
+        // An update queued after the last poll but before the flag was cleared found a sender still running.
+        schedule(subscriber);
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.pending.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) subscriber.emitter.complete();
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,124 @@
+package com.template.webserver;
+
+import net.corda.core.messaging.DataFeed;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.petchain.states.PetState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rx.Observable;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * The webserver's single subscription to PetState vault updates.
+ *
+ * Everything in the webserver that reacts to ownership changes registers a listener here rather than opening its own
+ * {@code vaultTrackBy} observable, so RPC load stays the same however many HTTP clients are listening. Reactive code
+ * subscribes to {@link #updates} instead, which republishes the same updates.
+ *
+ * If the subscription cannot be opened, or its connection drops, it is reopened on the RPC pool every
+ * {@code config.rpc.resubscribeDelay} milliseconds. Updates made while it was down are not replayed; listeners that
+ * cache vault data are told through {@link #addResubscribeListener} so they can drop it.
+ */
+@Component
+public class PetVaultFeed {
+    private final static Logger logger = LoggerFactory.getLogger(PetVaultFeed.class);
+
+    private final NodeRPCConnection rpc;
+    private final List<Consumer<Vault.Update<PetState>>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> resubscribeListeners = new CopyOnWriteArrayList<>();
+    private final PublishSubject<Vault.Update<PetState>> updates = PublishSubject.create();
+    private final ScheduledExecutorService resubscriber = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pet-vault-feed-resubscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Subscription subscription;
+
+    // How long, in milliseconds, to wait before reopening a failed subscription.
+    @Value("${config.rpc.resubscribeDelay:5000}")
+    private long resubscribeDelay;
+
+    public PetVaultFeed(NodeRPCConnection rpc) {
+        this.rpc = rpc;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        try {
+            // Only the updates are used, so ask for the smallest possible snapshot.
+            DataFeed<Vault.Page<PetState>, Vault.Update<PetState>> feed = rpc.proxy().vaultTrackBy(
+                    new QueryCriteria.VaultQueryCriteria(),
+                    new PageSpecification(DEFAULT_PAGE_NUM, 1),
+                    new Sort(Collections.emptySet()),
+                    PetState.class);
+            subscription = feed.getUpdates().subscribe(this::publish, this::failed);
+            for (Runnable listener : resubscribeListeners) listener.run();
+        } catch (RuntimeException e) {
+            failed(e);
+        }
+    }
+
+    private void failed(Throwable e) {
+        logger.error("PetState vault feed failed, resubscribing in {} ms", resubscribeDelay, e);
+        if (!resubscriber.isShutdown()) {
+            resubscriber.schedule(this::subscribe, resubscribeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void publish(Vault.Update<PetState> update) {
+        for (Consumer<Vault.Update<PetState>> listener : listeners) {
+            try {
+                listener.accept(update);
+            } catch (RuntimeException e) {
+                logger.warn("PetState vault feed listener failed", e);
+            }
+        }
+        updates.onNext(update);
+    }
+
+    /**
+     * Every update from now on. The observable never completes, even while the subscription is being reopened.
+     */
+    public Observable<Vault.Update<PetState>> updates() {
+        return updates;
+    }
+
+    public void addListener(Consumer<Vault.Update<PetState>> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Vault.Update<PetState>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a callback run every time the subscription is (re)opened.
+     */
+    public void addResubscribeListener(Runnable listener) {
+        resubscribeListeners.add(listener);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        resubscriber.shutdownNow();
+        if (subscription != null) subscription.unsubscribe();
+    }
+}
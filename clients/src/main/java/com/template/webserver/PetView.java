@@ -0,0 +1,114 @@
+package com.template.webserver;
+
+import net.corda.core.contracts.StateAndRef;
+import net.petchain.states.PetState;
+
+/**
+ * The JSON view of a pet served by the webserver. Parties are rendered as X.500 names.
+ */
+public class PetView {
+    private final String linearId;
+    private final String stateRef;
+    private final String petName;
+    private final String species;
+    private final String breed;
+    private final String sex;
+    private final String color;
+    private final String birthDate;
+    private final String owner;
+    private final String breeder;
+    private final String reissuedFrom;
+    private final String rabiesLicense;
+    private final String rabiesIssueDate;
+    private final String rabiesExpireDate;
+    private final String muniLicense;
+    private final String muniExpireDate;
+
+    private PetView(String linearId, String stateRef, PetState pet) {
+        this.linearId = linearId;
+        this.stateRef = stateRef;
+        this.petName = pet.getPetName();
+        this.species = pet.getSpecies();
+        this.breed = pet.getBreed();
+        this.sex = pet.getSex();
+        this.color = pet.getColor();
+        this.birthDate = pet.getBirthDate();
+        this.owner = pet.getOwner().getName().toString();
+        this.breeder = pet.getBreeder().getName().toString();
+        this.reissuedFrom = pet.getReissuedFrom() == null ? null : pet.getReissuedFrom().toString();
+        this.rabiesLicense = pet.getRabiesLicense();
+        this.rabiesIssueDate = pet.getRabiesIssueDate();
+        this.rabiesExpireDate = pet.getRabiesExpireDate();
+        this.muniLicense = pet.getMuniLicense();
+        this.muniExpireDate = pet.getMuniExpireDate();
+    }
+
+    public static PetView of(StateAndRef<PetState> stateAndRef) {
+        PetState pet = stateAndRef.getState().getData();
+        return new PetView(pet.getLinearId().toString(), stateAndRef.getRef().toString(), pet);
+    }
+
+    public String getLinearId() {
+        return linearId;
+    }
+
+    public String getStateRef() {
+        return stateRef;
+    }
+
+    public String getPetName() {
+        return petName;
+    }
+
+    public String getSpecies() {
+        return species;
+    }
+
+    public String getBreed() {
+        return breed;
+    }
+
+    public String getSex() {
+        return sex;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getBirthDate() {
+        return birthDate;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getBreeder() {
+        return breeder;
+    }
+
+    public String getReissuedFrom() {
+        return reissuedFrom;
+    }
+
+    public String getRabiesLicense() {
+        return rabiesLicense;
+    }
+
+    public String getRabiesIssueDate() {
+        return rabiesIssueDate;
+    }
+
+    public String getRabiesExpireDate() {
+        return rabiesExpireDate;
+    }
+
+    public String getMuniLicense() {
+        return muniLicense;
+    }
+
+    public String getMuniExpireDate() {
+        return muniExpireDate;
+    }
+}
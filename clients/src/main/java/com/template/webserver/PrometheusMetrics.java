@@ -0,0 +1,78 @@
+package com.template.webserver;
+
+import com.template.flows.PetFlowMetricsFlow;
+import com.template.flows.StepTiming;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Renders the node's pet flow metrics, and the webserver's own RPC pool metrics, in the Prometheus text format.
+ *
+ * Flow metrics are fetched with {@link PetFlowMetricsFlow} on every scrape, so they are as fresh as the scrape
+ * interval and the webserver keeps no state of its own.
+ */
+@Component
+public class PrometheusMetrics {
+    private final NodeRPCConnection rpc;
+
+    public PrometheusMetrics(NodeRPCConnection rpc) {
+        this.rpc = rpc;
+    }
+
+    public String scrape() throws ExecutionException, InterruptedException {
+        return render(rpc.call(proxy -> proxy.startFlowDynamic(PetFlowMetricsFlow.class)).getReturnValue().get());
+    }
+
+    /**
+     * Renders flow metrics already fetched with {@link PetFlowMetricsFlow}, together with the RPC pool metrics.
+     */
+    public String render(List<StepTiming> timings) {
+        final StringBuilder out = new StringBuilder();
+
+        out.append("# HELP pet_flow_step_seconds Time spent in each step of the pet flows. Step \"flow\" is the whole flow.\n");
+        out.append("# TYPE pet_flow_step_seconds summary\n");
+        for (StepTiming timing : timings) {
+            sample(out, "pet_flow_step_seconds_count", timing, Long.toString(timing.getCount()));
+            sample(out, "pet_flow_step_seconds_sum", timing, seconds(timing.getTotalNanos()));
+        }
+        out.append("# HELP pet_flow_step_seconds_max Longest single run of each step of the pet flows.\n");
+        out.append("# TYPE pet_flow_step_seconds_max gauge\n");
+        for (StepTiming timing : timings) {
+            sample(out, "pet_flow_step_seconds_max", timing, seconds(timing.getMaxNanos()));
+        }
+        out.append("# HELP pet_flow_step_failures_total Pet flows that failed during each step.\n");
+        out.append("# TYPE pet_flow_step_failures_total counter\n");
+        for (StepTiming timing : timings) {
+            sample(out, "pet_flow_step_failures_total", timing, Long.toString(timing.getFailures()));
+        }
+
+        final List<Map<String, Object>> pool = rpc.metrics();
+        out.append("# HELP pet_rpc_connection_in_flight RPC calls in flight on each pooled connection.\n");
+        out.append("# TYPE pet_rpc_connection_in_flight gauge\n");
+        for (Map<String, Object> connection : pool) {
+            out.append("pet_rpc_connection_in_flight{connection=\"").append(connection.get("connection")).append("\"} ")
+                    .append(connection.get("inFlight")).append('\n');
+        }
+        out.append("# HELP pet_rpc_connection_up Whether each pooled RPC connection is healthy.\n");
+        out.append("# TYPE pet_rpc_connection_up gauge\n");
+        for (Map<String, Object> connection : pool) {
+            out.append("pet_rpc_connection_up{connection=\"").append(connection.get("connection")).append("\"} ")
+                    .append(Boolean.TRUE.equals(connection.get("healthy")) ? 1 : 0).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, StepTiming timing, String value) {
+        out.append(name)
+                .append("{flow=\"").append(timing.getFlow())
+                .append("\",step=\"").append(timing.getStep())
+                .append("\"} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
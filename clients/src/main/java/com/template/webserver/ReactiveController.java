@@ -0,0 +1,198 @@
+package com.template.webserver;
+
+import com.template.flows.PetFlowMetricsFlow;
+import com.template.flows.StepTiming;
+import net.corda.core.identity.CordaX500Name;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The API of {@link Controller}, served without blocking when the webserver is started with
+ * {@code --config.web.mode=reactive}.
+ *
+ * Requests are handled on the Netty event loop. Anything that blocks on the node, such as a vault query, a cache miss
+ * or the first lookup of a party, runs through {@link ReactiveRpc} on its bounded RPC threads; flow results, submission
+ * waits and vault updates complete their responses by callback. Paths, parameters and bodies are the same as in
+ * servlet mode.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/")
+public class ReactiveController {
+    private final ReactiveRpc rpc;
+    private final NodeRPCConnection connections;
+    private final PetVaultFeed feed;
+    private final PetQueryService pets;
+    private final PetCache cache;
+    private final PetSubmissionService submissions;
+    private final PrometheusMetrics metrics;
+
+    // How long, in milliseconds, a wait on a submission is held open before the current status is returned.
+    @Value("${config.submit.waitTimeout:30000}")
+    private long waitTimeout;
+    // How many pets a new subscriber receives in its snapshot event.
+    @Value("${config.sse.snapshotSize:200}")
+    private int snapshotSize;
+    // How long, in milliseconds, a subscription stays open before the client must reconnect.
+    @Value("${config.sse.timeout:1800000}")
+    private long sseTimeout;
+    // How many updates are held for a subscriber that is not keeping up before its stream is closed.
+    @Value("${config.sse.buffer:1024}")
+    private int sseBuffer;
+
+    public ReactiveController(ReactiveRpc rpc, NodeRPCConnection connections, PetVaultFeed feed, PetQueryService pets,
+                              PetCache cache, PetSubmissionService submissions, PrometheusMetrics metrics) {
+        this.rpc = rpc;
+        this.connections = connections;
+        this.feed = feed;
+        this.pets = pets;
+        this.cache = cache;
+        this.submissions = submissions;
+        this.metrics = metrics;
+    }
+
+    @GetMapping(value = "/templateendpoint", produces = "text/plain")
+    private String templateendpoint() {
+        return "Define an endpoint here.";
+    }
+
+    /**
+     * As {@code GET /pets} in servlet mode. The page is rendered by Jackson once the query returns.
+     */
+    @GetMapping(value = "/pets", produces = "application/json")
+    private Mono<PetQueryService.Page> listPets(@RequestParam(required = false) String owner,
+                                                @RequestParam(required = false) String breeder,
+                                                @RequestParam(required = false) String species,
+                                                @RequestParam(required = false) String breed,
+                                                @RequestParam(required = false) String bornAfter,
+                                                @RequestParam(required = false) String bornBefore,
+                                                @RequestParam(required = false) String vaccinationExpiresBy,
+                                                @RequestParam(required = false) String licenseExpiresBy,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size) {
+        PetQueryService.PetFilter filter = new PetQueryService.PetFilter(
+                owner, breeder, species, breed, bornAfter, bornBefore, vaccinationExpiresBy, licenseExpiresBy);
+        return rpc.offload(() -> pets.page(filter, cursor, size));
+    }
+
+    @GetMapping(value = "/pets/{petId}", produces = "application/json")
+    private Mono<ResponseEntity<PetView>> pet(@PathVariable UUID petId) {
+        // A Mono cannot carry null, so a missing pet comes back empty and is answered with 404.
+        return rpc.offload(() -> cache.pet(petId))
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/pets/by-owner", produces = "application/json")
+    private Mono<List<PetView>> petsOwnedBy(@RequestParam String owner) {
+        CordaX500Name name;
+        try {
+            name = CordaX500Name.parse(owner);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "owner must be an X.500 name.", e);
+        }
+        return rpc.offload(() -> cache.petsOwnedBy(name));
+    }
+
+    @GetMapping(value = "/cache/stats", produces = "application/json")
+    private Map<String, Map<String, Object>> cacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Queues the birth of a pet owned by this node and returns its submission handle as soon as it is queued.
+     */
+    @PostMapping(value = "/pets", consumes = "application/json", produces = "application/json")
+    private Mono<ResponseEntity<PetSubmission>> registerPet(@RequestBody PetSubmissionService.PetRegistration registration) {
+        // Queueing only blocks the first time, while this node's identity is looked up.
+        return rpc.offload(() -> submissions.register(registration)).map(ReactiveController::accepted);
+    }
+
+    /**
+     * Queues the transfer of a pet to {@code newOwner} (an X.500 name) and returns its submission handle as soon as it
+     * is queued.
+     */
+    @PostMapping(value = "/pets/{petId}/transfer", produces = "application/json")
+    private Mono<ResponseEntity<PetSubmission>> transferPet(@PathVariable UUID petId, @RequestParam String newOwner) {
+        // Queueing only blocks the first time each new owner is looked up.
+        return rpc.offload(() -> submissions.transfer(petId, newOwner)).map(ReactiveController::accepted);
+    }
+
+    @GetMapping(value = "/submissions/{id}", produces = "application/json")
+    private ResponseEntity<PetSubmission> submission(@PathVariable UUID id) {
+        PetSubmission submission = submissions.submission(id);
+        return submission == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(submission);
+    }
+
+    /**
+     * Long-polls a submission: answers when it completes or fails, or with its current status after
+     * {@code config.submit.waitTimeout} milliseconds.
+     */
+    @GetMapping(value = "/submissions/{id}/wait", produces = "application/json")
+    private Mono<ResponseEntity<PetSubmission>> awaitSubmission(@PathVariable UUID id) {
+        PetSubmission submission = submissions.submission(id);
+        if (submission == null) return Mono.just(ResponseEntity.notFound().build());
+        return Mono.fromFuture(submission.done())
+                .timeout(Duration.ofMillis(waitTimeout), Mono.just(submission))
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/submissions/stats", produces = "application/json")
+    private Map<String, Object> submissionStats() {
+        return submissions.stats();
+    }
+
+    private static ResponseEntity<PetSubmission> accepted(PetSubmission submission) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/submissions/" + submission.getId()))
+                .body(submission);
+    }
+
+    /**
+     * Streams pet ownership changes as server-sent events: a snapshot of current pets, then every vault update.
+     * Updates are taken from the shared {@link PetVaultFeed} before the snapshot is queried, and held back until it
+     * has been sent, so none are lost in between; clients reconcile by state ref.
+     */
+    @GetMapping(value = "/pets/updates", produces = "text/event-stream")
+    private Flux<ServerSentEvent<Object>> petUpdates() {
+        Flux<ServerSentEvent<Object>> snapshot = rpc.query(proxy -> PetUpdateBroadcaster.snapshot(proxy, snapshotSize))
+                .map(pets -> ServerSentEvent.builder((Object) pets).event("snapshot").build())
+                .flux();
+        Flux<ServerSentEvent<Object>> updates = ReactiveRpc.flux(feed.updates(), sseBuffer)
+                .map(update -> ServerSentEvent.builder((Object) PetUpdateBroadcaster.render(update)).event("update").build());
+        return Flux.mergeSequential(snapshot, updates).take(Duration.ofMillis(sseTimeout));
+    }
+
+    @GetMapping(value = "/rpc/pool", produces = "application/json")
+    private List<Map<String, Object>> rpcPool() {
+        return connections.metrics();
+    }
+
+    /**
+     * Pet flow step timings and RPC pool gauges in the Prometheus text format. Only starting the metrics flow takes an
+     * RPC thread; its result completes the response by callback.
+     */
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4")
+    private Mono<String> prometheusMetrics() {
+        return rpc.<List<StepTiming>>flow(proxy -> proxy.startFlowDynamic(PetFlowMetricsFlow.class)).map(metrics::render);
+    }
+}
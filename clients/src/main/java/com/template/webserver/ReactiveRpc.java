@@ -0,0 +1,118 @@
+package com.template.webserver;
+
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.FlowHandle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import rx.Observable;
+import rx.Subscription;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Bridges Corda RPC into Reactor for the reactive webserver.
+ *
+ * Corda RPC calls such as {@code vaultQueryBy} block until the node answers, so they must never run on a Netty event
+ * loop. {@link #call} runs them on a fixed pool of {@code config.reactive.rpcThreads} threads instead, which also
+ * bounds how many calls the webserver has outstanding however many requests arrive. Flow results and RPC observables
+ * are already asynchronous and are adapted without a thread: a {@link CordaFuture} completes its {@link Mono} from
+ * the RPC client's callback, and an rx {@link Observable} feeds a {@link Flux} that unsubscribes when it is cancelled.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRpc {
+    // The most blocking RPC calls run at once for the reactive endpoints.
+    @Value("${config.reactive.rpcThreads:16}")
+    private int rpcThreads;
+
+    private final NodeRPCConnection rpc;
+    private Scheduler scheduler;
+
+    public ReactiveRpc(NodeRPCConnection rpc) {
+        this.rpc = rpc;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Schedulers.fromExecutorService(Executors.newFixedThreadPool(rpcThreads, r -> {
+            Thread thread = new Thread(r, "reactive-rpc");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.dispose();
+    }
+
+    /**
+     * Runs a blocking RPC operation through the connection pool, off the event loop. It is not retried if its
+     * connection fails.
+     */
+    public <T> Mono<T> call(Function<CordaRPCOps, T> operation) {
+        return Mono.fromCallable(() -> rpc.call(operation)).subscribeOn(scheduler);
+    }
+
+    /**
+     * Runs a blocking read-only RPC operation through the connection pool, off the event loop, failing over once to
+     * another connection if its connection fails.
+     */
+    public <T> Mono<T> query(Function<CordaRPCOps, T> operation) {
+        return Mono.fromCallable(() -> rpc.query(operation)).subscribeOn(scheduler);
+    }
+
+    /**
+     * Runs blocking work that makes RPC calls of its own, such as a cache load or a party lookup, off the event loop.
+     */
+    public <T> Mono<T> offload(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(scheduler);
+    }
+
+    /**
+     * Starts a flow and completes with its return value. Only starting the flow takes a thread.
+     */
+    public <T> Mono<T> flow(Function<CordaRPCOps, FlowHandle<T>> startFlow) {
+        return call(startFlow).flatMap(handle -> mono(handle.getReturnValue()));
+    }
+
+    /**
+     * A {@link Mono} completed by a {@link CordaFuture}, with the failure unwrapped from its {@link ExecutionException}.
+     */
+    public static <T> Mono<T> mono(CordaFuture<T> future) {
+        return Mono.create(sink -> future.then((CordaFuture<T> done) -> {
+            try {
+                sink.success(done.get());
+            } catch (ExecutionException e) {
+                sink.error(e.getCause() == null ? e : e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.error(e);
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * A {@link Flux} of an RPC observable's items. Items the subscriber has not asked for are buffered up to
+     * {@code buffer}; past that the flux fails, so a slow HTTP client cannot grow the webserver's memory.
+     */
+    public static <T> Flux<T> flux(Observable<T> observable, int buffer) {
+        return Flux.<T>create(sink -> {
+            Subscription subscription = observable.subscribe(sink::next, sink::error, sink::complete);
+            sink.onDispose(subscription::unsubscribe);
+        }, FluxSink.OverflowStrategy.BUFFER).onBackpressureBuffer(buffer);
+    }
+}
@@ -3,7 +3,9 @@ package com.template.webserver;
 import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
 
+import static org.springframework.boot.WebApplicationType.REACTIVE;
 import static org.springframework.boot.WebApplicationType.SERVLET;
 
 /**
@@ -12,12 +14,26 @@ import static org.springframework.boot.WebApplicationType.SERVLET;
 @SpringBootApplication
 public class Starter {
     /**
-     * Starts our Spring Boot application.
+     * Starts our Spring Boot application. {@code --config.web.mode=reactive} serves the API from {@link
+     * ReactiveController} on Netty instead of from {@link Controller} on Tomcat.
      */
     public static void main(String[] args) {
         SpringApplication app = new SpringApplication(Starter.class);
         app.setBannerMode(Banner.Mode.OFF);
-        app.setWebApplicationType(SERVLET);
+        app.setWebApplicationType(reactive(args) ? REACTIVE : SERVLET);
         app.run(args);
     }
-}
\ No newline at end of file
+
+    private static boolean reactive(String[] args) {
+        String mode = new SimpleCommandLinePropertySource(args).getProperty("config.web.mode");
+        if (mode == null) mode = System.getProperty("config.web.mode", "servlet");
+        switch (mode) {
+            case "servlet":
+                return false;
+            case "reactive":
+                return true;
+            default:
+                throw new IllegalArgumentException("config.web.mode must be servlet or reactive, not " + mode + ".");
+        }
+    }
+}
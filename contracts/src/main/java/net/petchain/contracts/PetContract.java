@@ -1,143 +1,368 @@
 package net.petchain.contracts;
 
 import net.corda.core.contracts.*;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.petchain.states.Pet;
 import net.petchain.states.PetState;
 import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.utilities.EncodingUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.PublicKey;
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.List;
-
-import static net.corda.core.contracts.ContractsDSL.requireSingleCommand;
-import static net.corda.core.contracts.ContractsDSL.requireThat;
+import java.util.Properties;
+import java.util.Set;
 
 @LegalProseReference(uri = "<prose_contract_uri>")
 public class PetContract implements Contract {
     public static final String PET_CONTRACT_ID = "net.petchain.contracts.PetContract";
+    // The trusted registry that may start a pet on a fresh chain. See {@link Commands.Reissue}.
+    public static final CordaX500Name REGISTRY_NAME = new CordaX500Name("PetRegistry", "London", "GB");
+    // The registry's owning key. A Party is only a name and a key, so anyone can claim the registry's name; the key is
+    // what is trusted. It is pinned into the contract jar when it is built (see contracts/build.gradle), so every node
+    // verifying a reissue checks it against the same key. Null if no key was pinned; then no pet can be reissued.
+    public static final PublicKey REGISTRY_KEY = pinnedRegistryKey();
 
     public interface Commands extends CommandData {
         class Born extends TypeOnlyCommandData implements Commands { }
         class Transfer extends TypeOnlyCommandData implements Commands { }
-//        class Vaccinate extends TypeOnlyCommandData implements Commands { }
-//        class License extends TypeOnlyCommandData implements Commands { }
+        // Ends a pet's current chain. Its state is consumed without a successor.
+        class Retire extends TypeOnlyCommandData implements Commands { }
+
+        /**
+         * Starts a retired pet on a fresh chain: the new state has no inputs, so later owners do not have to resolve
+         * the history behind it. Provenance is kept by the state's {@code reissuedFrom} pointer to the retired state,
+         * and vouched for by the registry's signature.
+         */
+        class Reissue implements Commands {
+            private final Party registry;
+
+            public Reissue(Party registry) {
+                this.registry = registry;
+            }
+
+            public Party getRegistry() {
+                return registry;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Reissue && registry.equals(((Reissue) o).registry);
+            }
+
+            @Override
+            public int hashCode() {
+                return registry.hashCode();
+            }
+        }
+        // Attaches a new rabies vaccination to each pet, replacing the one before it.
+        class Vaccinate extends TypeOnlyCommandData implements Commands { }
+        // Attaches a new municipal license to each pet, replacing the one before it.
+        class License extends TypeOnlyCommandData implements Commands { }
+        // Removes each pet's expired vaccination or license. The transaction's time window proves they had expired.
+        class Lapse extends TypeOnlyCommandData implements Commands { }
     }
 
+    /**
+     * Verification runs on every node for every pet transaction, including each one met during back-chain resolution.
+     * It therefore walks the transaction's own input and output lists once, reading them in place, and allocates
+     * nothing on the success path of a single-pet transaction. The failure messages are the ones the requireThat DSL
+     * produced.
+     */
     @Override
     public void verify(@NotNull LedgerTransaction tx) throws IllegalArgumentException {
-//        if(tx.getCommands().size()!= 1)
-//            throw new IllegalArgumentException("Transaction must have only one command.");
-//        CommandWithParties<Commands> command = requireSingleCommand(tx.getCommands(), Commands.class);
-        // We can use the requireSingleCommand function to extract command data from transaction.
-        final CommandWithParties<Commands> command = requireSingleCommand(tx.getCommands(), Commands.class);
-        final Commands commandData = command.getValue();
-
-        /**
-         * This command data can then be used inside of a conditional statement to indicate which set of tests we
-         * should be performing - we will use different assertions to enable the contract to verify the transaction
-         * for issuing, settling and transferring.
-         */
+        verifyPets(tx, PetState.class);
+    }
 
-        List<PublicKey> requiredSigners = command.getSigners();
+    /**
+     * The rules of every pet command, for pets encoded as {@code type}. {@link PetContractV2} applies the same rules
+     * to {@link net.petchain.states.PetStateV2}.
+     */
+    static void verifyPets(LedgerTransaction tx, Class<? extends Pet> type) {
+        final CommandWithParties<CommandData> command = requireSinglePetCommand(tx.getCommands());
+        final CommandData commandData = command.getValue();
+        final List<PublicKey> requiredSigners = command.getSigners();
 
 // Think in terms of:
 //  1) Scope constraints - nbr of inputs/outputs, nbr of commands, command types
 //  2) Content constraints - inspecting inputs and outputs for expected value ranges.
 //  3) Signer constraints - who should be signing on each command.
 
-        if (commandData.equals (new Commands.Born())) {
-
-            requireThat(require -> {
-
-                //      Scope constraints
-                require.using("Pet born should have zero inputs.", tx.getInputStates().size() == 0);
-                require.using("Pet born should have one output.", tx.getOutputStates().size() == 1);
-                require.using("Pet born output should be a PetState.", tx.outputsOfType(PetState.class).size() == 1);
-
-                //      Content constraints
-                ContractState outputState = tx.getOutput(0);
-                PetState petStateOutput = (PetState) outputState;
-                require.using("Owner and Breeder must be the same when pet is born.", petStateOutput.getOwner().equals(petStateOutput.getBreeder()));
-                require.using("Pet's species type, e.g., canine, feline, required when recording birth.", !petStateOutput.getSpecies().isEmpty());
-                require.using("Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.",!petStateOutput.getBreed().isEmpty());
-                require.using("Pet's color required when recording birth.", !petStateOutput.getColor().isEmpty());
-                require.using("Pet's gender required when recording birth.", !petStateOutput.getSex().isEmpty());
-                require.using("Pet's birth date required when recording birth.",!petStateOutput.getBirthDate().isEmpty());
-
-                //      Signer constraints
-                require.using("Pet born should have output owner's as a required signer.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
-
-                return null;
-                    });
-//            if (petStateOutput.getPetName().isEmpty())
-//                throw new IllegalArgumentException("Requires pet's name.");
-//            if (petStateOutput.getOwner() != petStateOutput.getBreeder())
-//                throw new IllegalArgumentException("Owner and Breeder must be the same when pet is born.");
-//            if (petStateOutput.getSpecies().isEmpty())
-//                throw new IllegalArgumentException("Pet's species type, e.g., canine, feline, required when recording birth.");
-//            if (petStateOutput.getBreed().isEmpty())
-//                throw new IllegalArgumentException("Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.");
-//            if (petStateOutput.getColor().isEmpty())
-//                throw new IllegalArgumentException("Pet's color required when recording birth.");
-//            if (petStateOutput.getSex().isEmpty())
-//                throw new IllegalArgumentException("Pet's gender required when recording birth.");
-//            if (petStateOutput.getBirthDate().isEmpty())
-//                throw new IllegalArgumentException("Pet's birth date required when recording birth.");
-//      Signer constraints
-//            if (!(requiredSigners.contains(petStateOutput.getOwner().getOwningKey())))
-//                throw new IllegalArgumentException("Pet born should have output owner's as a required signer.");
-
-        } else if (command.getValue() instanceof Commands.Transfer) {
-            requireThat(require -> {
-
-                //      Scope constraints
-                require.using("Pet transfer should have one input.", tx.getInputStates().size() == 1);
-                require.using("Pet transfer should have one output.",tx.getOutputStates().size() == 1 );
-                require.using("Pet transfer input should be an PetState.", tx.inputsOfType(PetState.class).size() == 1);
-                require.using("Pet transfer output should be an PetState.", tx.outputsOfType(PetState.class).size() == 1);
+        if (commandData instanceof Commands.Born) {
+            verifyBorn(type, tx.getInputs(), tx.getOutputs(), requiredSigners);
+        } else if (commandData instanceof Commands.Transfer) {
+            verifyTransfer(type, tx.getInputs(), tx.getOutputs(), requiredSigners);
+        } else if (commandData instanceof Commands.Retire) {
+            verifyRetire(type, tx.getInputs(), tx.getOutputs(), requiredSigners);
+        } else if (commandData instanceof Commands.Reissue) {
+            verifyReissue(type, tx.getInputs(), tx.getOutputs(), ((Commands.Reissue) commandData).getRegistry(), requiredSigners);
+        } else if (commandData instanceof Commands.Vaccinate) {
+            verifyVaccinate(type, tx.getInputs(), tx.getOutputs(), requiredSigners);
+        } else if (commandData instanceof Commands.License) {
+            verifyLicense(type, tx.getInputs(), tx.getOutputs(), requiredSigners);
+        } else if (commandData instanceof Commands.Lapse) {
+            verifyLapse(type, tx.getInputs(), tx.getOutputs(), tx.getTimeWindow(), requiredSigners);
+        } else throw new IllegalArgumentException("Unrecognized command!");
+    }
+
+    private static void verifyBorn(Class<? extends Pet> type,
+                                   List<StateAndRef<ContractState>> inputs,
+                                   List<TransactionState<ContractState>> outputs,
+                                   List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        require("Pet born should have zero inputs.", inputs.isEmpty());
+        require("Pet born should have at least one output.", !outputs.isEmpty());
+
+        // A litter or intake file may be recorded under a single Born command, so every output is checked. Only a
+        // multi-pet birth needs a set to prove each output is a different pet.
+        final int outputCount = outputs.size();
+        final Set<UniqueIdentifier> petIds = outputCount > 1 ? new HashSet<>(outputCount * 2) : null;
+        for (int i = 0; i < outputCount; i++) {
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet born output should be a PetState.", type.isInstance(outputState));
+            final Pet petStateOutput = (Pet) outputState;
 
             //      Content constraints
+            if (petIds != null) {
+                require("Pet born outputs must each be a different pet.", petIds.add(petStateOutput.getLinearId()));
+            }
+            check(PetValidator.bornViolation(petStateOutput));
 
-                ContractState inputState = tx.getInput(0);
-                ContractState outputState = tx.getOutput(0);
-                PetState petStateInput = (PetState) inputState;
-                PetState petStateOutput = (PetState) outputState;
-
-                require.using("Requires pet's name.", !petStateOutput.getPetName().isEmpty());
-                require.using("Output Owner must differ from Input Owner in a pet transfer.", !petStateOutput.getOwner().equals(petStateInput.getOwner()));
-                require.using("Pet species type cannot change in a pet transfer.", petStateOutput.getSpecies().equals(petStateInput.getSpecies()));
-                require.using("Pet breed type cannot change in a pet transfer.", petStateOutput.getBreed().equals(petStateInput.getBreed()));
-                require.using("Pet color cannot change in a pet transfer.", petStateOutput.getColor().equals(petStateInput.getColor()));
-                require.using("Pet gender cannot change in a pet transfer.", petStateOutput.getSex().equals(petStateInput.getSex()));
-                require.using("Pet birth date cannot change in a pet transfer.", petStateOutput.getBirthDate().equals(petStateInput.getBirthDate()));
-
-                //      Signer constraints
-
-                require.using("Current owner required to sign a pet transfer.", requiredSigners.contains(petStateInput.getOwner().getOwningKey()));
-                require.using("New owner required to sign a pet transfer.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
-//            if (petStateOutput.getPetName().isEmpty())
-//                throw new IllegalArgumentException("Requires pet's name.");
-//            if (petStateOutput.getOwner().equals(petStateInput.getOwner()))
-//                throw new IllegalArgumentException("Output Owner must differ from Input Owner in a pet transfer.");
-//            if (!petStateOutput.getSpecies().equals(petStateInput.getSpecies()))
-//                throw new IllegalArgumentException("Pet's species type cannot change in a pet Transfer");
-//            if (!petStateOutput.getBreed().equals(petStateInput.getBreed()))
-//                throw new IllegalArgumentException("Pet's breed type cannot change in a pet transfer");
-//            if (!petStateOutput.getColor().equals(petStateInput.getColor()))
-//                throw new IllegalArgumentException("Pet's color cannot change in a pet transfer");
-//            if (!petStateOutput.getSex().equals(petStateInput.getSex()))
-//                throw new IllegalArgumentException("Pet's gender type cannot change in a pet transfer");
-//            if (!petStateOutput.getBirthDate().equals(petStateInput.getBirthDate()))
-//                throw new IllegalArgumentException("Pet's birth date cannot change in a pet transfer");
+            //      Signer constraints
+            require("Pet born should have output owner's as a required signer.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
+
+    private static void verifyTransfer(Class<? extends Pet> type,
+                                       List<StateAndRef<ContractState>> inputs,
+                                       List<TransactionState<ContractState>> outputs,
+                                       List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        final int pairCount = inputs.size();
+        require("Pet transfer should have at least one input.", pairCount >= 1);
+        require("Pet transfer should have at least one output.", !outputs.isEmpty());
+        require("Pet transfer should have one output for each input.", outputs.size() == pairCount);
+
+        // A group sale moves many pets at once. Outputs are paired with inputs by position, and each pair must be
+        // the same pet.
+        for (int i = 0; i < pairCount; i++) {
+            final ContractState inputState = inputs.get(i).getState().getData();
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet transfer input should be an PetState.", type.isInstance(inputState));
+            require("Pet transfer output should be an PetState.", type.isInstance(outputState));
+            final Pet petStateInput = (Pet) inputState;
+            final Pet petStateOutput = (Pet) outputState;
+
+            //      Content constraints
+            check(PetValidator.transferViolation(petStateInput, petStateOutput));
 
             //      Signer constraints
-//            if (!(requiredSigners.contains(petStateInput.getOwner().getOwningKey())))
-//                throw new IllegalArgumentException("Current owner required to sign a pet transfer.");
-//            if (!(requiredSigners.contains(petStateOutput.getOwner().getOwningKey())))
-//                throw new IllegalArgumentException("New owner required to sign a pet transfer.");
+            require("Current owner required to sign a pet transfer.", requiredSigners.contains(petStateInput.getOwner().getOwningKey()));
+            require("New owner required to sign a pet transfer.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
 
-                return null;
-            });
+    private static void verifyRetire(Class<? extends Pet> type,
+                                     List<StateAndRef<ContractState>> inputs,
+                                     List<TransactionState<ContractState>> outputs,
+                                     List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        require("Pet retirement should have at least one input.", !inputs.isEmpty());
+        require("Pet retirement should have zero outputs.", outputs.isEmpty());
 
-        } else throw new IllegalArgumentException("Unrecognized command!");
+        for (int i = 0; i < inputs.size(); i++) {
+            final ContractState inputState = inputs.get(i).getState().getData();
+            require("Pet retirement input should be a PetState.", type.isInstance(inputState));
+
+            //      Signer constraints
+            require("Current owner required to sign a pet retirement.", requiredSigners.contains(((Pet) inputState).getOwner().getOwningKey()));
+        }
+    }
+
+    private static void verifyReissue(Class<? extends Pet> type,
+                                      List<StateAndRef<ContractState>> inputs,
+                                      List<TransactionState<ContractState>> outputs,
+                                      Party registry,
+                                      List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        require("Pet reissue should have zero inputs.", inputs.isEmpty());
+        require("Pet reissue should have at least one output.", !outputs.isEmpty());
+
+        //      Signer constraints
+        require("Pets can only be reissued by the pet registry.", REGISTRY_KEY != null
+                && registry.getName().equals(REGISTRY_NAME) && registry.getOwningKey().equals(REGISTRY_KEY));
+        require("The pet registry must sign a pet reissue.", requiredSigners.contains(REGISTRY_KEY));
+
+        final int outputCount = outputs.size();
+        final Set<UniqueIdentifier> petIds = outputCount > 1 ? new HashSet<>(outputCount * 2) : null;
+        for (int i = 0; i < outputCount; i++) {
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet reissue output should be a PetState.", type.isInstance(outputState));
+            final Pet petStateOutput = (Pet) outputState;
+
+            //      Content constraints
+            if (petIds != null) {
+                require("Pet reissue outputs must each be a different pet.", petIds.add(petStateOutput.getLinearId()));
+            }
+            // The retired state is consumed, so it is not in this transaction; the registry's signature vouches that
+            // reissuedFrom names a retired state of the same pet, which the registry checks before signing.
+            check(PetValidator.reissueViolation(petStateOutput));
+
+            //      Signer constraints
+            require("Owner required to sign a pet reissue.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
+
+    private static void verifyVaccinate(Class<? extends Pet> type,
+                                        List<StateAndRef<ContractState>> inputs,
+                                        List<TransactionState<ContractState>> outputs,
+                                        List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        final int pairCount = inputs.size();
+        require("Pet vaccination should have at least one input.", pairCount >= 1);
+        require("Pet vaccination should have one output for each input.", outputs.size() == pairCount);
+
+        // Outputs are paired with inputs by position, as in a transfer.
+        for (int i = 0; i < pairCount; i++) {
+            final ContractState inputState = inputs.get(i).getState().getData();
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet vaccination input should be a PetState.", type.isInstance(inputState));
+            require("Pet vaccination output should be a PetState.", type.isInstance(outputState));
+            final Pet petStateInput = (Pet) inputState;
+            final Pet petStateOutput = (Pet) outputState;
+
+            //      Content constraints
+            require("Only the vaccination can change in a pet vaccination.",
+                    PetValidator.samePet(petStateOutput, petStateInput) && PetValidator.sameLicense(petStateOutput, petStateInput));
+            check(PetValidator.vaccinationViolation(petStateOutput));
+
+            //      Signer constraints
+            require("Owner required to sign a pet vaccination.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
+
+    private static void verifyLicense(Class<? extends Pet> type,
+                                      List<StateAndRef<ContractState>> inputs,
+                                      List<TransactionState<ContractState>> outputs,
+                                      List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        final int pairCount = inputs.size();
+        require("Pet license should have at least one input.", pairCount >= 1);
+        require("Pet license should have one output for each input.", outputs.size() == pairCount);
+
+        for (int i = 0; i < pairCount; i++) {
+            final ContractState inputState = inputs.get(i).getState().getData();
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet license input should be a PetState.", type.isInstance(inputState));
+            require("Pet license output should be a PetState.", type.isInstance(outputState));
+            final Pet petStateInput = (Pet) inputState;
+            final Pet petStateOutput = (Pet) outputState;
+
+            //      Content constraints
+            require("Only the license can change in a pet license.",
+                    PetValidator.samePet(petStateOutput, petStateInput) && PetValidator.sameVaccination(petStateOutput, petStateInput));
+            check(PetValidator.licenseViolation(petStateOutput));
+
+            //      Signer constraints
+            require("Owner required to sign a pet license.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
+
+    private static void verifyLapse(Class<? extends Pet> type,
+                                    List<StateAndRef<ContractState>> inputs,
+                                    List<TransactionState<ContractState>> outputs,
+                                    TimeWindow timeWindow,
+                                    List<PublicKey> requiredSigners) {
+        //      Scope constraints
+        final int pairCount = inputs.size();
+        require("Pet lapse should have at least one input.", pairCount >= 1);
+        require("Pet lapse should have one output for each input.", outputs.size() == pairCount);
+        require("Pet lapse must have a time window with a start.", timeWindow != null && timeWindow.getFromTime() != null);
+        final Instant now = timeWindow.getFromTime();
+
+        for (int i = 0; i < pairCount; i++) {
+            final ContractState inputState = inputs.get(i).getState().getData();
+            final ContractState outputState = outputs.get(i).getData();
+            require("Pet lapse input should be a PetState.", type.isInstance(inputState));
+            require("Pet lapse output should be a PetState.", type.isInstance(outputState));
+            final Pet petStateInput = (Pet) inputState;
+            final Pet petStateOutput = (Pet) outputState;
+
+            //      Content constraints
+            final boolean rabiesKept = PetValidator.sameVaccination(petStateOutput, petStateInput);
+            final boolean muniKept = PetValidator.sameLicense(petStateOutput, petStateInput);
+            require("Only expired records can change in a pet lapse.", PetValidator.samePet(petStateOutput, petStateInput));
+            require("Pet lapse must remove at least one record.", !rabiesKept || !muniKept);
+            require("A lapsed vaccination must be removed entirely.", rabiesKept
+                    || (petStateOutput.getRabiesLicense() == null && petStateOutput.rabiesIssueDateValue() == null && petStateOutput.rabiesExpireDateValue() == null));
+            require("A lapsed license must be removed entirely.", muniKept
+                    || (petStateOutput.getMuniLicense() == null && petStateOutput.muniExpireDateValue() == null));
+            require("Only an expired vaccination can lapse.", rabiesKept
+                    || PetValidator.expiredBy(petStateInput.rabiesExpireDateValue(), now));
+            require("Only an expired license can lapse.", muniKept
+                    || PetValidator.expiredBy(petStateInput.muniExpireDateValue(), now));
+
+            //      Signer constraints
+            require("Owner required to sign a pet lapse.", requiredSigners.contains(petStateOutput.getOwner().getOwningKey()));
+        }
+    }
+
+    /**
+     * The registry key pinned at build time, or {@code null} if none was, in which case every reissue is refused.
+     */
+    private static PublicKey pinnedRegistryKey() {
+        final String key = pinned("registry.properties", "key");
+        return key == null ? null : EncodingUtils.parsePublicKeyBase58(key);
+    }
+
+    /**
+     * Reads a value pinned into the contract jar at build time, or {@code null} if it was left empty.
+     */
+    static String pinned(String resource, String name) {
+        try (InputStream in = PetContract.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException(resource + " is missing from the contract jar.");
+            final Properties properties = new Properties();
+            properties.load(in);
+            final String value = properties.getProperty(name, "").trim();
+            return value.isEmpty() ? null : value;
+        } catch (IOException e) {
+            throw new IllegalStateException(resource + " in the contract jar cannot be read.", e);
+        }
+    }
+
+    /**
+     * Equivalent to {@code requireSingleCommand(commands, Commands.class)}, without the filtered and mapped copies of
+     * the command list it builds.
+     */
+    static CommandWithParties<CommandData> requireSinglePetCommand(List<CommandWithParties<CommandData>> commands) {
+        CommandWithParties<CommandData> petCommand = null;
+        for (int i = 0; i < commands.size(); i++) {
+            final CommandWithParties<CommandData> candidate = commands.get(i);
+            if (candidate.getValue() instanceof Commands) {
+                if (petCommand != null) throw new IllegalArgumentException("List has more than one element.");
+                petCommand = candidate;
+            }
+        }
+        if (petCommand == null) throw new IllegalStateException("Required net.petchain.contracts.PetContract.Commands command");
+        return petCommand;
+    }
+
+    /**
+     * Equivalent to {@code requireThat(require -> require.using(message, expr))}, without the lambda.
+     */
+    static void require(String message, boolean expr) {
+        if (!expr) throw new IllegalArgumentException("Failed requirement: " + message);
+    }
+
+    /**
+     * Fails with a {@link PetValidator} violation, in the same form as {@link #require}.
+     */
+    static void check(String violation) {
+        if (violation != null) throw new IllegalArgumentException("Failed requirement: " + violation);
     }
 }
@@ -0,0 +1,56 @@
+package net.petchain.contracts;
+
+import net.corda.core.contracts.*;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.utilities.EncodingUtils;
+import net.petchain.states.PetState;
+import net.petchain.states.PetStateV2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Governs {@link PetStateV2}, the compact encoding of a pet.
+ *
+ * The rules are those of {@link PetContract}, under the same {@link PetContract.Commands}, and are checked by the same
+ * code through {@link net.petchain.states.Pet}. Fixed attributes are compared as enum constants, codes and dates
+ * rather than strings.
+ *
+ * Upgrading legacy pets is refused for now: the flows, vault queries, vault feed and exporters only handle
+ * {@link PetState}, so an upgraded pet would drop out of the app. Once they handle both encodings, a legacy pet moves
+ * to this version with Corda's contract upgrade flows, keeping its provenance, vaccination and license.
+ *
+ * An upgrade is only accepted from the legacy contract jar pinned at build time, by its signer or hash (see
+ * contracts/build.gradle). With neither pinned, every upgrade is refused rather than accepting any jar that claims to
+ * be {@link PetContract}.
+ */
+@LegalProseReference(uri = "<prose_contract_uri>")
+public class PetContractV2 implements UpgradedContractWithLegacyConstraint<PetState, PetStateV2> {
+    public static final String PET_CONTRACT_V2_ID = "net.petchain.contracts.PetContractV2";
+
+    @NotNull
+    @Override
+    public String getLegacyContract() {
+        return PetContract.PET_CONTRACT_ID;
+    }
+
+    @NotNull
+    @Override
+    public AttachmentConstraint getLegacyContractConstraint() {
+        final String signer = PetContract.pinned("upgrade.properties", "signer");
+        if (signer != null) return new SignatureAttachmentConstraint(EncodingUtils.parsePublicKeyBase58(signer));
+        final String hash = PetContract.pinned("upgrade.properties", "hash");
+        if (hash != null) return new HashAttachmentConstraint(SecureHash.parse(hash));
+        throw new IllegalStateException("No legacy PetContract jar is pinned, so pets cannot be upgraded to PetContractV2.");
+    }
+
+    @NotNull
+    @Override
+    public PetStateV2 upgrade(@NotNull PetState state) {
+        throw new IllegalStateException("Pets cannot be upgraded to PetContractV2 until the flows, queries and vault feed handle PetStateV2.");
+    }
+
+    @Override
+    public void verify(@NotNull LedgerTransaction tx) throws IllegalArgumentException {
+        PetContract.verifyPets(tx, PetStateV2.class);
+    }
+}
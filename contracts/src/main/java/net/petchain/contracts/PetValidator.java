@@ -0,0 +1,184 @@
+package net.petchain.contracts;
+
+import net.corda.core.identity.Party;
+import net.petchain.states.Pet;
+import net.petchain.states.PetState;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * The content rules of {@link PetContract} and {@link PetContractV2}, callable without a {@code LedgerTransaction}.
+ * They read a pet through {@link Pet}, so both state encodings are held to the same rules and messages.
+ *
+ * The contract runs these checks on every transaction; the webserver and the import client run the same ones on a
+ * request before any flow is started, so a request the contract would reject is turned away in microseconds. Each
+ * check returns the contract's failure message, or {@code null} if the value passes. Nothing is allocated on the
+ * passing path, since the contract calls these for every pet in every transaction it verifies.
+ *
+ * Scope and signer constraints stay in the contract: they depend on the shape of the transaction and its commands,
+ * which a request does not have yet.
+ */
+public final class PetValidator {
+    private PetValidator() {
+    }
+
+    /**
+     * The attributes a pet must have to be born. These are the only Born rules a caller building a new pet from a
+     * request can break; the others hold for any pet made with the plain {@link PetState} constructor. Each value is
+     * in the encoding of the pet's state, and is missing if it is {@code null} or empty.
+     */
+    public static String bornAttributesViolation(Object species, Object breed, Object color, Object sex, Object birthDate) {
+        if (isNullOrEmpty(species)) return "Pet's species type, e.g., canine, feline, required when recording birth.";
+        if (isNullOrEmpty(breed)) return "Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.";
+        if (isNullOrEmpty(color)) return "Pet's color required when recording birth.";
+        if (isNullOrEmpty(sex)) return "Pet's gender required when recording birth.";
+        if (isNullOrEmpty(birthDate)) return "Pet's birth date required when recording birth.";
+        return null;
+    }
+
+    /**
+     * The content rules for an output of a Born transaction.
+     */
+    public static String bornViolation(Pet pet) {
+        if (pet.getReissuedFrom() != null) return "Pet born cannot be a reissued pet.";
+        if (hasRecords(pet)) return "Pet born cannot carry a vaccination or license.";
+        if (!pet.getOwner().equals(pet.getBreeder())) return "Owner and Breeder must be the same when pet is born.";
+        return bornAttributesViolation(pet.speciesValue(), pet.breedValue(), pet.colorValue(), pet.sexValue(), pet.birthDateValue());
+    }
+
+    /**
+     * The content rules for an output of a Reissue transaction: it names the state it was reissued from, and carries
+     * the attributes a pet is born with and any records in their valid form.
+     */
+    public static String reissueViolation(Pet pet) {
+        if (pet.getReissuedFrom() == null) return "Reissued pet must record the state it was reissued from.";
+        if (isNullOrEmpty(pet.getPetName())) return "Requires pet's name.";
+        final String attributes = bornAttributesViolation(pet.speciesValue(), pet.breedValue(), pet.colorValue(), pet.sexValue(), pet.birthDateValue());
+        if (attributes != null) return attributes;
+        if (pet.getRabiesLicense() != null || pet.rabiesIssueDateValue() != null || pet.rabiesExpireDateValue() != null) {
+            final String vaccination = vaccinationViolation(pet);
+            if (vaccination != null) return vaccination;
+        }
+        if (pet.getMuniLicense() != null || pet.muniExpireDateValue() != null) return licenseViolation(pet);
+        return null;
+    }
+
+    /**
+     * The rule a transfer request can be checked against before the pet is looked up: it must change the owner.
+     */
+    public static String newOwnerViolation(Party owner, Party newOwner) {
+        return owner.equals(newOwner) ? "Output Owner must differ from Input Owner in a pet transfer." : null;
+    }
+
+    /**
+     * The content rules for a pet moving from {@code input} to {@code output} in a Transfer transaction: only the
+     * owner may change.
+     */
+    public static String transferViolation(Pet input, Pet output) {
+        if (!output.getLinearId().equals(input.getLinearId())) return "Pet identity cannot change in a pet transfer.";
+        if (output.getPetName().isEmpty()) return "Requires pet's name.";
+        final String newOwner = newOwnerViolation(input.getOwner(), output.getOwner());
+        if (newOwner != null) return newOwner;
+        if (!Objects.equals(output.speciesValue(), input.speciesValue())) return "Pet species type cannot change in a pet transfer.";
+        if (!Objects.equals(output.breedValue(), input.breedValue())) return "Pet breed type cannot change in a pet transfer.";
+        if (!Objects.equals(output.colorValue(), input.colorValue())) return "Pet color cannot change in a pet transfer.";
+        if (!Objects.equals(output.sexValue(), input.sexValue())) return "Pet gender cannot change in a pet transfer.";
+        if (!Objects.equals(output.birthDateValue(), input.birthDateValue())) return "Pet birth date cannot change in a pet transfer.";
+        if (!Objects.equals(output.getReissuedFrom(), input.getReissuedFrom())) return "Pet provenance cannot change in a pet transfer.";
+        if (!sameVaccination(output, input)) return "Pet vaccination cannot change in a pet transfer.";
+        if (!sameLicense(output, input)) return "Pet license cannot change in a pet transfer.";
+        return null;
+    }
+
+    /**
+     * The rules for the rabies vaccination a Vaccinate transaction attaches. Dates are ISO-8601 strings or
+     * {@link LocalDate}s.
+     */
+    public static String vaccinationViolation(String rabiesLicense, Object issueDate, Object expireDate) {
+        if (isNullOrEmpty(rabiesLicense)) return "Rabies license required for a pet vaccination.";
+        final LocalDate issued = date(issueDate);
+        final LocalDate expires = date(expireDate);
+        if (issued == null || expires == null) return "Rabies issue and expiry dates must be ISO-8601 dates.";
+        if (!expires.isAfter(issued)) return "Rabies vaccination must expire after it is issued.";
+        return null;
+    }
+
+    public static String vaccinationViolation(Pet pet) {
+        return vaccinationViolation(pet.getRabiesLicense(), pet.rabiesIssueDateValue(), pet.rabiesExpireDateValue());
+    }
+
+    /**
+     * The rules for the municipal license a License transaction attaches.
+     */
+    public static String licenseViolation(String muniLicense, Object expireDate) {
+        if (isNullOrEmpty(muniLicense)) return "Municipal license required for a pet license.";
+        if (date(expireDate) == null) return "Municipal license expiry must be an ISO-8601 date.";
+        return null;
+    }
+
+    public static String licenseViolation(Pet pet) {
+        return licenseViolation(pet.getMuniLicense(), pet.muniExpireDateValue());
+    }
+
+    /**
+     * Whether a record expiring on {@code expireDate} is no longer valid at {@code now}: it stops being valid at the
+     * start of the following day, UTC. False if there is no valid expiry date.
+     */
+    public static boolean expiredBy(Object expireDate, Instant now) {
+        final LocalDate expires = date(expireDate);
+        return expires != null && !now.isBefore(expires.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    /**
+     * The same pet, owner and provenance, with the same fixed attributes.
+     */
+    public static boolean samePet(Pet a, Pet b) {
+        return a.getLinearId().equals(b.getLinearId())
+                && a.getOwner().equals(b.getOwner())
+                && a.getBreeder().equals(b.getBreeder())
+                && a.getPetName().equals(b.getPetName())
+                && Objects.equals(a.speciesValue(), b.speciesValue())
+                && Objects.equals(a.breedValue(), b.breedValue())
+                && Objects.equals(a.sexValue(), b.sexValue())
+                && Objects.equals(a.colorValue(), b.colorValue())
+                && Objects.equals(a.birthDateValue(), b.birthDateValue())
+                && Objects.equals(a.getReissuedFrom(), b.getReissuedFrom());
+    }
+
+    public static boolean sameVaccination(Pet a, Pet b) {
+        return Objects.equals(a.getRabiesLicense(), b.getRabiesLicense())
+                && Objects.equals(a.rabiesIssueDateValue(), b.rabiesIssueDateValue())
+                && Objects.equals(a.rabiesExpireDateValue(), b.rabiesExpireDateValue());
+    }
+
+    public static boolean sameLicense(Pet a, Pet b) {
+        return Objects.equals(a.getMuniLicense(), b.getMuniLicense())
+                && Objects.equals(a.muniExpireDateValue(), b.muniExpireDateValue());
+    }
+
+    static boolean hasRecords(Pet pet) {
+        return pet.getRabiesLicense() != null || pet.rabiesIssueDateValue() != null || pet.rabiesExpireDateValue() != null
+                || pet.getMuniLicense() != null || pet.muniExpireDateValue() != null;
+    }
+
+    private static boolean isNullOrEmpty(Object value) {
+        return value == null || (value instanceof String && ((String) value).isEmpty());
+    }
+
+    // Legacy dates are stored as ISO-8601 strings so that the indexed expiry columns sort chronologically; compact
+    // ones are already LocalDates. Returns null for anything else, including a string that is not strictly ISO-8601.
+    private static LocalDate date(Object value) {
+        if (value instanceof LocalDate) return (LocalDate) value;
+        if (!(value instanceof String)) return null;
+        try {
+            final LocalDate date = LocalDate.parse((String) value);
+            return date.toString().equals(value) ? date : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
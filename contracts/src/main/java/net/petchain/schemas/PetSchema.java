@@ -0,0 +1,6 @@
+package net.petchain.schemas;
+
+/**
+ * The family of schemas for {@link net.petchain.states.PetState}.
+ */
+public class PetSchema { }
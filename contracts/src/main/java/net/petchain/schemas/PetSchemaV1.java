@@ -0,0 +1,114 @@
+package net.petchain.schemas;
+
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * A PetState schema.
+ *
+ * Every column a pet is looked up by is indexed, so vault queries on owner, breeder, name, species, breed, birth
+ * date or vaccination and license expiry run as SQL predicates instead of deserializing every unconsumed PetState.
+ * The expiry columns were added by pet.changelog-v2 and are null for pets without a vaccination or license.
+ */
+public class PetSchemaV1 extends MappedSchema {
+    public PetSchemaV1() {
+        super(PetSchema.class, 1, Collections.singletonList(PersistentPet.class));
+    }
+
+    @Override
+    public String getMigrationResource() {
+        return "pet.changelog-master";
+    }
+
+    @Entity
+    @Table(name = "pet_states", indexes = {
+            @Index(name = "pet_id_idx", columnList = "pet_id"),
+            @Index(name = "pet_owner_idx", columnList = "owner"),
+            @Index(name = "pet_breeder_idx", columnList = "breeder"),
+            @Index(name = "pet_name_idx", columnList = "pet_name"),
+            @Index(name = "pet_species_breed_idx", columnList = "species,breed"),
+            @Index(name = "pet_birth_date_idx", columnList = "birth_date"),
+            @Index(name = "pet_rabies_expire_date_idx", columnList = "rabies_expire_date"),
+            @Index(name = "pet_muni_expire_date_idx", columnList = "muni_expire_date")
+    })
+    public static class PersistentPet extends PersistentState {
+        @Column(name = "pet_id", nullable = false) private final UUID petId;
+        @Column(name = "owner", nullable = false) private final String owner;
+        @Column(name = "breeder", nullable = false) private final String breeder;
+        @Column(name = "pet_name") private final String petName;
+        @Column(name = "species") private final String species;
+        @Column(name = "breed") private final String breed;
+        @Column(name = "birth_date") private final String birthDate;
+        @Column(name = "rabies_expire_date") private final String rabiesExpireDate;
+        @Column(name = "muni_expire_date") private final String muniExpireDate;
+
+        public PersistentPet(UUID petId, String owner, String breeder, String petName, String species, String breed, String birthDate,
+                             String rabiesExpireDate, String muniExpireDate) {
+            this.petId = petId;
+            this.owner = owner;
+            this.breeder = breeder;
+            this.petName = petName;
+            this.species = species;
+            this.breed = breed;
+            this.birthDate = birthDate;
+            this.rabiesExpireDate = rabiesExpireDate;
+            this.muniExpireDate = muniExpireDate;
+        }
+
+        // Default constructor required by hibernate.
+        public PersistentPet() {
+            this.petId = null;
+            this.owner = null;
+            this.breeder = null;
+            this.petName = null;
+            this.species = null;
+            this.breed = null;
+            this.birthDate = null;
+            this.rabiesExpireDate = null;
+            this.muniExpireDate = null;
+        }
+
+        public UUID getPetId() {
+            return petId;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public String getBreeder() {
+            return breeder;
+        }
+
+        public String getPetName() {
+            return petName;
+        }
+
+        public String getSpecies() {
+            return species;
+        }
+
+        public String getBreed() {
+            return breed;
+        }
+
+        public String getBirthDate() {
+            return birthDate;
+        }
+
+        public String getRabiesExpireDate() {
+            return rabiesExpireDate;
+        }
+
+        public String getMuniExpireDate() {
+            return muniExpireDate;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.petchain.states;
+
+import net.corda.core.contracts.LinearState;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.identity.Party;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * What {@link net.petchain.contracts.PetValidator} and the pet contracts check, whatever a state's encoding.
+ *
+ * {@link PetState} holds its attributes as free text and {@link PetStateV2} as enums, codes and dates, so each
+ * attribute is exposed as a value in the state's own encoding: two states agree on it when the values are equal, and
+ * it is unrecorded when the value is {@code null} or an empty string. Record dates are either ISO-8601 strings or
+ * {@link java.time.LocalDate}s.
+ */
+public interface Pet extends LinearState {
+    Party getOwner();
+
+    Party getBreeder();
+
+    String getPetName();
+
+    @Nullable
+    StateRef getReissuedFrom();
+
+    @Nullable
+    String getRabiesLicense();
+
+    @Nullable
+    String getMuniLicense();
+
+    Object speciesValue();
+
+    Object breedValue();
+
+    Object colorValue();
+
+    Object sexValue();
+
+    Object birthDateValue();
+
+    @Nullable
+    Object rabiesIssueDateValue();
+
+    @Nullable
+    Object rabiesExpireDateValue();
+
+    @Nullable
+    Object muniExpireDateValue();
+}
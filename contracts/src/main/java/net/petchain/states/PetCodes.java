@@ -0,0 +1,122 @@
+package net.petchain.states;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Code tables for the breeds and colors a {@link PetStateV2} records as two-byte codes instead of free text.
+ *
+ * A code is the position of its label in the table plus one; code 0 means "not recorded". Codes are written to the
+ * ledger, so the tables are append-only: never reorder or remove an entry, only add new ones at the end.
+ *
+ * A breed or color with no entry has no code; {@link PetStateV2} keeps its text instead.
+ */
+public final class PetCodes {
+    public static final short UNRECORDED = 0;
+
+    private static final String[] BREEDS = {
+            "Mixed",
+            "Beagle",
+            "Border Collie",
+            "Boxer",
+            "Bulldog",
+            "Chihuahua",
+            "Cockapoo",
+            "Cocker Spaniel",
+            "Dachshund",
+            "French Bulldog",
+            "German Shepherd",
+            "Golden Retriever",
+            "Great Dane",
+            "Labradoodle",
+            "Labrador Retriever",
+            "Maltese",
+            "Pomeranian",
+            "Poodle",
+            "Pug",
+            "Rottweiler",
+            "Shih Tzu",
+            "Siberian Husky",
+            "Yorkshire Terrier",
+            "Abyssinian",
+            "Bengal",
+            "British Shorthair",
+            "Domestic Shorthair",
+            "Domestic Longhair",
+            "Maine Coon",
+            "Persian",
+            "Ragdoll",
+            "Siamese",
+            "Sphynx"
+    };
+
+    private static final String[] COLORS = {
+            "beige",
+            "black",
+            "blue",
+            "brindle",
+            "brown",
+            "cream",
+            "fawn",
+            "gold",
+            "gray",
+            "orange",
+            "red",
+            "sable",
+            "silver",
+            "tabby",
+            "tan",
+            "tortoiseshell",
+            "tricolor",
+            "white"
+    };
+
+    private static final Map<String, Short> BREED_CODES = index(BREEDS);
+    private static final Map<String, Short> COLOR_CODES = index(COLORS);
+
+    private PetCodes() { }
+
+    private static Map<String, Short> index(String[] labels) {
+        Map<String, Short> codes = new HashMap<>(labels.length * 2);
+        for (int i = 0; i < labels.length; i++) {
+            codes.put(labels[i].toLowerCase(Locale.ROOT), (short) (i + 1));
+        }
+        return codes;
+    }
+
+    private static short code(Map<String, Short> codes, String kind, String label) {
+        Short code = codes.get(label.toLowerCase(Locale.ROOT));
+        if (code == null) throw new IllegalArgumentException("No " + kind + " code for '" + label + "'.");
+        return code;
+    }
+
+    private static String label(String[] labels, String kind, short code) {
+        if (code < 1 || code > labels.length) throw new IllegalArgumentException("Unknown " + kind + " code " + code + ".");
+        return labels[code - 1];
+    }
+
+    public static short breedCode(String breed) {
+        return code(BREED_CODES, "breed", breed);
+    }
+
+    public static boolean hasBreedCode(String breed) {
+        return BREED_CODES.containsKey(breed.toLowerCase(Locale.ROOT));
+    }
+
+    public static String breedLabel(short code) {
+        return label(BREEDS, "breed", code);
+    }
+
+    public static short colorCode(String color) {
+        return code(COLOR_CODES, "color", color);
+    }
+
+    public static boolean hasColorCode(String color) {
+        return COLOR_CODES.containsKey(color.toLowerCase(Locale.ROOT));
+    }
+
+    public static String colorLabel(short code) {
+        return label(COLORS, "color", code);
+    }
+}
@@ -1,17 +1,29 @@
 package net.petchain.states;
 
 import net.corda.core.contracts.BelongsToContract;
-import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
 import net.corda.core.identity.AbstractParty;
 import net.corda.core.identity.Party;
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+import net.corda.core.schemas.QueryableState;
+import net.corda.core.serialization.ConstructorForDeserialization;
+import net.corda.core.serialization.DeprecatedConstructorForDeserialization;
 import net.petchain.contracts.PetContract;
+import net.petchain.schemas.PetSchemaV1;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @BelongsToContract(PetContract.class)
-public class PetState implements ContractState {
+public class PetState implements Pet, QueryableState {
 
     private final Party owner;
     private final String petName;
@@ -21,17 +33,46 @@ public class PetState implements ContractState {
     private final String color;
     private final String birthDate;
     private final Party breeder;
+    private final UniqueIdentifier linearId;
+    // The retired state this pet's current chain was reissued from, or null if the chain goes back to its birth.
+    @Nullable
+    private final StateRef reissuedFrom;
+    // The pet's current rabies vaccination, attached by a Vaccinate command. Null until the first one.
+    @Nullable
+    private final String rabiesLicense;
+    @Nullable
+    private final String rabiesIssueDate;
+    @Nullable
+    private final String rabiesExpireDate;
+    // The pet's current municipal license, attached by a License command. Null until the first one.
+    @Nullable
+    private final String muniLicense;
+    @Nullable
+    private final String muniExpireDate;
 //    private String birthPlace;
 //    private Date deathDate;
 //    private String deathPlace;
 //    private String deathCause;
-//    private final String rabiesLicense;
 //    private String rabiesIssuer;
-//    private final String rabiesIssueDate;
-//    private final String rabiesExpireDate;
-//    private final String muniLicense;
 
     public PetState (Party owner, String petName, String species, String breed, String sex, String color, String birthDate, Party breeder) {
+        this(owner, petName, species, breed, sex, color, birthDate, breeder, new UniqueIdentifier());
+    }
+
+    @DeprecatedConstructorForDeserialization(version = 1)
+    public PetState (Party owner, String petName, String species, String breed, String sex, String color, String birthDate, Party breeder, UniqueIdentifier linearId) {
+        this(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, null);
+    }
+
+    @DeprecatedConstructorForDeserialization(version = 2)
+    public PetState (Party owner, String petName, String species, String breed, String sex, String color, String birthDate, Party breeder, UniqueIdentifier linearId, @Nullable StateRef reissuedFrom) {
+        this(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, reissuedFrom, null, null, null, null, null);
+    }
+
+    @ConstructorForDeserialization
+    public PetState (Party owner, String petName, String species, String breed, String sex, String color, String birthDate, Party breeder, UniqueIdentifier linearId, @Nullable StateRef reissuedFrom,
+                     @Nullable String rabiesLicense, @Nullable String rabiesIssueDate, @Nullable String rabiesExpireDate,
+                     @Nullable String muniLicense, @Nullable String muniExpireDate) {
         this.owner = owner;
         this.petName = petName;
         this.species = species;
@@ -41,14 +82,18 @@ public class PetState implements ContractState {
         this.birthDate = birthDate;
 
         this.breeder = breeder;
+        this.linearId = linearId;
+        this.reissuedFrom = reissuedFrom;
+        this.rabiesLicense = rabiesLicense;
+        this.rabiesIssueDate = rabiesIssueDate;
+        this.rabiesExpireDate = rabiesExpireDate;
+        this.muniLicense = muniLicense;
+        this.muniExpireDate = muniExpireDate;
 //        this.birthPlace = birthPlace;
 //        this.deathDate = deathDate;
 //        this.deathPlace = deathPlace;
 //        this.deathCause = deathCause;
-//        this.rabiesLicense = rabiesLicense;
 //        this.rabiesIssuer = rabiesIssuer;
-//        this.rabiesIssueDate = rabiesIssueDate;
-//        this.rabiesExpireDate = rabiesExpireDate;
     }
 
     public Party getOwner() {
@@ -81,6 +126,114 @@ public class PetState implements ContractState {
 
     public Party getBreeder() { return breeder; }
 
+    @NotNull
+    @Override
+    public UniqueIdentifier getLinearId() { return linearId; }
+
+    @Nullable
+    public StateRef getReissuedFrom() { return reissuedFrom; }
+
+    @Nullable
+    public String getRabiesLicense() { return rabiesLicense; }
+
+    @Nullable
+    public String getRabiesIssueDate() { return rabiesIssueDate; }
+
+    @Nullable
+    public String getRabiesExpireDate() { return rabiesExpireDate; }
+
+    @Nullable
+    public String getMuniLicense() { return muniLicense; }
+
+    @Nullable
+    public String getMuniExpireDate() { return muniExpireDate; }
+
+    @Override
+    public Object speciesValue() { return species; }
+
+    @Override
+    public Object breedValue() { return breed; }
+
+    @Override
+    public Object colorValue() { return color; }
+
+    @Override
+    public Object sexValue() { return sex; }
+
+    @Override
+    public Object birthDateValue() { return birthDate; }
+
+    @Override
+    public Object rabiesIssueDateValue() { return rabiesIssueDate; }
+
+    @Override
+    public Object rabiesExpireDateValue() { return rabiesExpireDate; }
+
+    @Override
+    public Object muniExpireDateValue() { return muniExpireDate; }
+
+    /**
+     * The earlier of the rabies and municipal license expiry dates, or {@code null} if the pet has neither.
+     */
+    @Nullable
+    public String getEarliestExpireDate() {
+        if (rabiesExpireDate == null) return muniExpireDate;
+        if (muniExpireDate == null) return rabiesExpireDate;
+        // ISO-8601 dates, so their lexical order is their chronological order.
+        return rabiesExpireDate.compareTo(muniExpireDate) <= 0 ? rabiesExpireDate : muniExpireDate;
+    }
+
+    /**
+     * Returns the next state in this pet's history: the same pet, identified by the same linear id, under a new owner.
+     */
+    public PetState withNewOwner(Party newOwner) {
+        return new PetState(newOwner, petName, species, breed, sex, color, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the first state of a fresh chain for this pet: the same pet and owner, recording {@code retired} as the
+     * state it was reissued from.
+     */
+    public PetState reissuedFrom(StateRef retired) {
+        return new PetState(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, retired,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with {@code license} as its current rabies vaccination.
+     */
+    public PetState vaccinated(String license, String issueDate, String expireDate) {
+        return new PetState(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, reissuedFrom,
+                license, issueDate, expireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with {@code license} as its current municipal license.
+     */
+    public PetState licensed(String license, String expireDate) {
+        return new PetState(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, license, expireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with every record that expired on or before {@code date} removed.
+     */
+    public PetState lapsedOn(String date) {
+        final boolean rabiesLapsed = rabiesExpireDate != null && rabiesExpireDate.compareTo(date) <= 0;
+        final boolean muniLapsed = muniExpireDate != null && muniExpireDate.compareTo(date) <= 0;
+        return new PetState(owner, petName, species, breed, sex, color, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLapsed ? null : rabiesLicense, rabiesLapsed ? null : rabiesIssueDate, rabiesLapsed ? null : rabiesExpireDate,
+                muniLapsed ? null : muniLicense, muniLapsed ? null : muniExpireDate);
+    }
+
+    /**
+     * The instant a record expiring on {@code expireDate} stops being valid: the start of the following day, UTC.
+     */
+    public static Instant expiredAt(String expireDate) {
+        return LocalDate.parse(expireDate).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
 //    public String getBirthPlace() {
 //        return birthPlace;
 //    }
@@ -97,20 +250,8 @@ public class PetState implements ContractState {
 //        return deathCause;
 //    }
 //
-//    public String getRabiesLicense() {
-//        return rabiesLicense;
-//    }
-//
 //    public String getRabiesIssuer() {
 //        return rabiesIssuer;
-//    }
-//
-//    public String getRabiesIssueDate() {
-//        return rabiesIssueDate;
-//    }
-//
-//    public String getRabiesExpireDate() {
-//        return rabiesExpireDate;
 //    }
 
     @NotNull
@@ -120,4 +261,29 @@ public class PetState implements ContractState {
         participants.add(owner);
         return participants;
     }
+
+    @NotNull
+    @Override
+    public PersistentState generateMappedObject(@NotNull MappedSchema schema) {
+        if (schema instanceof PetSchemaV1) {
+            return new PetSchemaV1.PersistentPet(
+                    linearId.getId(),
+                    owner.getName().toString(),
+                    breeder.getName().toString(),
+                    petName,
+                    species,
+                    breed,
+                    birthDate,
+                    rabiesExpireDate,
+                    muniExpireDate);
+        } else {
+            throw new IllegalArgumentException("Unrecognised schema " + schema);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterable<MappedSchema> supportedSchemas() {
+        return Collections.singletonList(new PetSchemaV1());
+    }
 }
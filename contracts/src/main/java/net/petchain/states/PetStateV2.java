@@ -0,0 +1,296 @@
+package net.petchain.states;
+
+import net.corda.core.contracts.BelongsToContract;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.identity.AbstractParty;
+import net.corda.core.identity.Party;
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+import net.corda.core.schemas.QueryableState;
+import net.petchain.contracts.PetContractV2;
+import net.petchain.schemas.PetSchemaV1;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The compact encoding of a pet. Species and sex are enums, breed and color are {@link PetCodes} codes, and the birth
+ * date and record dates are {@link LocalDate}s. Every transaction in a pet's history carries these fields, so they are
+ * kept small, and the contract compares them by identity or value instead of by string contents. A breed or color the
+ * code tables do not list is kept as its text instead, with no code.
+ *
+ * {@link PetContractV2} will upgrade existing {@link PetState}s to this version once the flows and queries handle it.
+ */
+@BelongsToContract(PetContractV2.class)
+public class PetStateV2 implements Pet, QueryableState {
+
+    private final Party owner;
+    private final String petName;
+    private final Species species;
+    private final short breed;
+    // The breed as text, if the code table has no entry for it; the code is then UNRECORDED.
+    @Nullable
+    private final String unlistedBreed;
+    private final Sex sex;
+    private final short color;
+    // The color as text, if the code table has no entry for it; the code is then UNRECORDED.
+    @Nullable
+    private final String unlistedColor;
+    private final LocalDate birthDate;
+    private final Party breeder;
+    private final UniqueIdentifier linearId;
+    // The retired state this pet's current chain was reissued from, or null if the chain goes back to its birth.
+    @Nullable
+    private final StateRef reissuedFrom;
+    // The pet's current rabies vaccination, attached by a Vaccinate command. Null until the first one.
+    @Nullable
+    private final String rabiesLicense;
+    @Nullable
+    private final LocalDate rabiesIssueDate;
+    @Nullable
+    private final LocalDate rabiesExpireDate;
+    // The pet's current municipal license, attached by a License command. Null until the first one.
+    @Nullable
+    private final String muniLicense;
+    @Nullable
+    private final LocalDate muniExpireDate;
+
+    public PetStateV2 (Party owner, String petName, Species species, short breed, @Nullable String unlistedBreed, Sex sex,
+                       short color, @Nullable String unlistedColor, LocalDate birthDate, Party breeder, UniqueIdentifier linearId,
+                       @Nullable StateRef reissuedFrom,
+                       @Nullable String rabiesLicense, @Nullable LocalDate rabiesIssueDate, @Nullable LocalDate rabiesExpireDate,
+                       @Nullable String muniLicense, @Nullable LocalDate muniExpireDate) {
+        this.owner = owner;
+        this.petName = petName;
+        this.species = species;
+        this.breed = breed;
+        this.unlistedBreed = unlistedBreed;
+        this.sex = sex;
+        this.color = color;
+        this.unlistedColor = unlistedColor;
+        this.birthDate = birthDate;
+        this.breeder = breeder;
+        this.linearId = linearId;
+        this.reissuedFrom = reissuedFrom;
+        this.rabiesLicense = rabiesLicense;
+        this.rabiesIssueDate = rabiesIssueDate;
+        this.rabiesExpireDate = rabiesExpireDate;
+        this.muniLicense = muniLicense;
+        this.muniExpireDate = muniExpireDate;
+    }
+
+    /**
+     * Re-encodes a legacy pet, keeping its provenance and records. A breed or color with no code in {@link PetCodes}
+     * keeps its original text. Fails if the species or sex is not one of the enum constants, rather than losing data.
+     */
+    public static PetStateV2 fromLegacy(PetState legacy) {
+        final String breed = legacy.getBreed();
+        final String color = legacy.getColor();
+        final boolean breedListed = PetCodes.hasBreedCode(breed);
+        final boolean colorListed = PetCodes.hasColorCode(color);
+        return new PetStateV2(
+                legacy.getOwner(),
+                legacy.getPetName(),
+                Species.fromLabel(legacy.getSpecies()),
+                breedListed ? PetCodes.breedCode(breed) : PetCodes.UNRECORDED,
+                breedListed ? null : breed,
+                Sex.fromLabel(legacy.getSex()),
+                colorListed ? PetCodes.colorCode(color) : PetCodes.UNRECORDED,
+                colorListed ? null : color,
+                LocalDate.parse(legacy.getBirthDate()),
+                legacy.getBreeder(),
+                legacy.getLinearId(),
+                legacy.getReissuedFrom(),
+                legacy.getRabiesLicense(),
+                date(legacy.getRabiesIssueDate()),
+                date(legacy.getRabiesExpireDate()),
+                legacy.getMuniLicense(),
+                date(legacy.getMuniExpireDate()));
+    }
+
+    private static LocalDate date(String isoDate) {
+        return isoDate == null ? null : LocalDate.parse(isoDate);
+    }
+
+    public Party getOwner() {
+        return owner;
+    }
+
+    public String getPetName() {
+        return petName;
+    }
+
+    public Species getSpecies() {
+        return species;
+    }
+
+    public short getBreed() {
+        return breed;
+    }
+
+    @Nullable
+    public String getUnlistedBreed() { return unlistedBreed; }
+
+    public Sex getSex() {
+        return sex;
+    }
+
+    public short getColor() {
+        return color;
+    }
+
+    @Nullable
+    public String getUnlistedColor() { return unlistedColor; }
+
+    /**
+     * The breed as text: the code's label, or the unlisted breed. {@code null} if no breed is recorded.
+     */
+    @Nullable
+    public String breedLabel() {
+        return breed != PetCodes.UNRECORDED ? PetCodes.breedLabel(breed) : unlistedBreed;
+    }
+
+    /**
+     * The color as text: the code's label, or the unlisted color. {@code null} if no color is recorded.
+     */
+    @Nullable
+    public String colorLabel() {
+        return color != PetCodes.UNRECORDED ? PetCodes.colorLabel(color) : unlistedColor;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public Party getBreeder() { return breeder; }
+
+    @NotNull
+    @Override
+    public UniqueIdentifier getLinearId() { return linearId; }
+
+    @Nullable
+    public StateRef getReissuedFrom() { return reissuedFrom; }
+
+    @Nullable
+    public String getRabiesLicense() { return rabiesLicense; }
+
+    @Nullable
+    public LocalDate getRabiesIssueDate() { return rabiesIssueDate; }
+
+    @Nullable
+    public LocalDate getRabiesExpireDate() { return rabiesExpireDate; }
+
+    @Nullable
+    public String getMuniLicense() { return muniLicense; }
+
+    @Nullable
+    public LocalDate getMuniExpireDate() { return muniExpireDate; }
+
+    @Override
+    public Object speciesValue() { return species; }
+
+    // Codes are small, so the boxed value comes from the Short cache.
+    @Override
+    public Object breedValue() { return breed != PetCodes.UNRECORDED ? Short.valueOf(breed) : unlistedBreed; }
+
+    @Override
+    public Object colorValue() { return color != PetCodes.UNRECORDED ? Short.valueOf(color) : unlistedColor; }
+
+    @Override
+    public Object sexValue() { return sex; }
+
+    @Override
+    public Object birthDateValue() { return birthDate; }
+
+    @Override
+    public Object rabiesIssueDateValue() { return rabiesIssueDate; }
+
+    @Override
+    public Object rabiesExpireDateValue() { return rabiesExpireDate; }
+
+    @Override
+    public Object muniExpireDateValue() { return muniExpireDate; }
+
+    /**
+     * Returns the next state in this pet's history: the same pet, identified by the same linear id, under a new owner.
+     */
+    public PetStateV2 withNewOwner(Party newOwner) {
+        return new PetStateV2(newOwner, petName, species, breed, unlistedBreed, sex, color, unlistedColor, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the first state of a fresh chain for this pet: the same pet and owner, recording {@code retired} as the
+     * state it was reissued from.
+     */
+    public PetStateV2 reissuedFrom(StateRef retired) {
+        return new PetStateV2(owner, petName, species, breed, unlistedBreed, sex, color, unlistedColor, birthDate, breeder, linearId, retired,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with {@code license} as its current rabies vaccination.
+     */
+    public PetStateV2 vaccinated(String license, LocalDate issueDate, LocalDate expireDate) {
+        return new PetStateV2(owner, petName, species, breed, unlistedBreed, sex, color, unlistedColor, birthDate, breeder, linearId, reissuedFrom,
+                license, issueDate, expireDate, muniLicense, muniExpireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with {@code license} as its current municipal license.
+     */
+    public PetStateV2 licensed(String license, LocalDate expireDate) {
+        return new PetStateV2(owner, petName, species, breed, unlistedBreed, sex, color, unlistedColor, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLicense, rabiesIssueDate, rabiesExpireDate, license, expireDate);
+    }
+
+    /**
+     * Returns the next state in this pet's history with every record that expired on or before {@code date} removed.
+     */
+    public PetStateV2 lapsedOn(LocalDate date) {
+        final boolean rabiesLapsed = rabiesExpireDate != null && !rabiesExpireDate.isAfter(date);
+        final boolean muniLapsed = muniExpireDate != null && !muniExpireDate.isAfter(date);
+        return new PetStateV2(owner, petName, species, breed, unlistedBreed, sex, color, unlistedColor, birthDate, breeder, linearId, reissuedFrom,
+                rabiesLapsed ? null : rabiesLicense, rabiesLapsed ? null : rabiesIssueDate, rabiesLapsed ? null : rabiesExpireDate,
+                muniLapsed ? null : muniLicense, muniLapsed ? null : muniExpireDate);
+    }
+
+    @NotNull
+    @Override
+    public List<AbstractParty> getParticipants() {
+        return Collections.singletonList(owner);
+    }
+
+    /**
+     * Maps onto the same table as {@link PetState}, with codes expanded back to labels and unlisted breeds as their
+     * text, so both versions are found by the same queries.
+     */
+    @NotNull
+    @Override
+    public PersistentState generateMappedObject(@NotNull MappedSchema schema) {
+        if (schema instanceof PetSchemaV1) {
+            return new PetSchemaV1.PersistentPet(
+                    linearId.getId(),
+                    owner.getName().toString(),
+                    breeder.getName().toString(),
+                    petName,
+                    species == null ? null : species.getLabel(),
+                    breedLabel(),
+                    birthDate == null ? null : birthDate.toString(),
+                    rabiesExpireDate == null ? null : rabiesExpireDate.toString(),
+                    muniExpireDate == null ? null : muniExpireDate.toString());
+        } else {
+            throw new IllegalArgumentException("Unrecognised schema " + schema);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterable<MappedSchema> supportedSchemas() {
+        return Collections.singletonList(new PetSchemaV1());
+    }
+}
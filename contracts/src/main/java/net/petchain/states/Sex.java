@@ -0,0 +1,32 @@
+package net.petchain.states;
+
+import net.corda.core.serialization.CordaSerializable;
+
+/**
+ * The sex a {@link PetStateV2} records. Serialized as an enum constant instead of free text.
+ */
+@CordaSerializable
+public enum Sex {
+    FEMALE("female"),
+    MALE("male");
+
+    private final String label;
+
+    Sex(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Parses the free-text sex of a legacy {@link PetState}, e.g. "female", "Female" or "F".
+     */
+    public static Sex fromLabel(String label) {
+        for (Sex sex : values()) {
+            if (sex.label.equalsIgnoreCase(label) || sex.label.substring(0, 1).equalsIgnoreCase(label)) return sex;
+        }
+        throw new IllegalArgumentException("Unknown sex '" + label + "'.");
+    }
+}
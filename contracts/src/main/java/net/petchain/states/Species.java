@@ -0,0 +1,37 @@
+package net.petchain.states;
+
+import net.corda.core.serialization.CordaSerializable;
+
+/**
+ * The species a {@link PetStateV2} records. Serialized as an enum constant instead of free text.
+ */
+@CordaSerializable
+public enum Species {
+    CANINE("Canine"),
+    FELINE("Feline"),
+    EQUINE("Equine"),
+    AVIAN("Avian"),
+    LAGOMORPH("Lagomorph"),
+    RODENT("Rodent"),
+    REPTILE("Reptile");
+
+    private final String label;
+
+    Species(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Parses the free-text species of a legacy {@link PetState}, e.g. "Canine" or "canine".
+     */
+    public static Species fromLabel(String label) {
+        for (Species species : values()) {
+            if (species.label.equalsIgnoreCase(label) || species.name().equalsIgnoreCase(label)) return species;
+        }
+        throw new IllegalArgumentException("Unknown species '" + label + "'.");
+    }
+}
@@ -87,6 +87,27 @@ public class PetBornTest {
         });
     }
 
+    @Test
+    public void mustIncludeOnlyOnePetCommand() {
+        PetState pet = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                tx.command(BOB.getPublicKey(), new PetContract.Commands.Born()); // Two pet commands.
+                return tx.failsWith("Contract verification failed");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                tx.command(BOB.getPublicKey(), new Commands.DummyCommand()); // Other contracts' commands are ignored.
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
     /**
      * Task 2.
      * As previously observed, born transactions should not have any input state references. Therefore we must check to
@@ -129,24 +150,48 @@ public class PetBornTest {
 
     /**
      * Task 3.
-     * Now we need to ensure that only one {@link PetState} is issued per transaction.
-     * TODO: Write a contract constraint that ensures only one output state is created in a transaction.
-     * Hint: Write an additional constraint within the existing [requireThat] block which you created in the previous
-     * task.
+     * A Born transaction records at least one pet. Breeders register whole litters and shelters whole intake files,
+     * so several {@link PetState}s may be recorded under one Born command, as long as each is a different pet.
      */
     @Test
-    public void bornTransactionMustHaveOneOutput() {
+    public void bornTransactionMustHaveAtLeastOneOutput() {
+        PetState pet = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born()); // No outputs fails.
+                return tx.failsWith("Pet born should have at least one output.");
+            });
+            l.transaction(tx -> {
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                tx.output(PetContract.PET_CONTRACT_ID, pet); // One output passes.
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void bornTransactionMayRecordALitter() {
         PetState pet = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState sibling = new PetState(ALICE.getParty(), "Mimi", "Canine", "Cockapoo", "male", "black", "2006-10-12", ALICE.getParty());
+        PetState invalidSibling = new PetState(ALICE.getParty(), "Mumu", "Canine", "Cockapoo", "male", "", "2006-10-12", ALICE.getParty());
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
                 tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
-                tx.output(PetContract.PET_CONTRACT_ID, pet); // Two outputs fails.
+                tx.output(PetContract.PET_CONTRACT_ID, pet); // The same pet twice fails.
                 tx.output(PetContract.PET_CONTRACT_ID, pet);
-                return tx.failsWith("Pet born should have one output.");
+                return tx.failsWith("Pet born outputs must each be a different pet.");
             });
             l.transaction(tx -> {
                 tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
-                tx.output(PetContract.PET_CONTRACT_ID, pet); // One output passes.
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, invalidSibling); // Every pet in the litter is checked.
+                return tx.failsWith("Pet's color required when recording birth.");
+            });
+            l.transaction(tx -> {
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, sibling);
                 return tx.verifies();
             });
             return null;
@@ -0,0 +1,169 @@
+package net.petchain.contracts;
+
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.TimeWindow;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.testing.node.MockServices;
+import net.petchain.states.PetCodes;
+import net.petchain.states.PetState;
+import net.petchain.states.PetStateV2;
+import net.petchain.states.Sex;
+import net.petchain.states.Species;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.petchain.utils.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The compact pet encoding obeys the same rules as the legacy one, and legacy pets re-encode to it without losing their
+ * provenance, records or unlisted breeds.
+ */
+public class PetContractV2Test {
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.petchain.contracts")
+    );
+
+    private static PetStateV2 momo() {
+        return new PetStateV2(ALICE.getParty(), "Momo", Species.CANINE, PetCodes.breedCode("Cockapoo"), null, Sex.FEMALE,
+                PetCodes.colorCode("beige"), null, LocalDate.of(2006, 10, 12), ALICE.getParty(), new UniqueIdentifier(), null,
+                null, null, null, null, null);
+    }
+
+    @Test
+    public void legacyPetUpgradesToTheCompactEncoding() {
+        PetState legacy = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetStateV2 upgraded = PetStateV2.fromLegacy(legacy);
+
+        assertEquals(legacy.getLinearId(), upgraded.getLinearId());
+        assertEquals(legacy.getOwner(), upgraded.getOwner());
+        assertEquals(legacy.getBreeder(), upgraded.getBreeder());
+        assertEquals("Momo", upgraded.getPetName());
+        assertEquals(Species.CANINE, upgraded.getSpecies());
+        assertEquals("Cockapoo", PetCodes.breedLabel(upgraded.getBreed()));
+        assertEquals(Sex.FEMALE, upgraded.getSex());
+        assertEquals("beige", PetCodes.colorLabel(upgraded.getColor()));
+        assertEquals(LocalDate.of(2006, 10, 12), upgraded.getBirthDate());
+    }
+
+    @Test
+    public void legacyPetWithoutACodeKeepsItsText() {
+        PetState legacy = new PetState(ALICE.getParty(), "Momo", "Canine", "Wolfhound-Poodle-Corgi", "female", "merle", "2006-10-12", ALICE.getParty());
+        PetStateV2 upgraded = PetStateV2.fromLegacy(legacy);
+
+        assertEquals(PetCodes.UNRECORDED, upgraded.getBreed());
+        assertEquals("Wolfhound-Poodle-Corgi", upgraded.breedLabel());
+        assertEquals(PetCodes.UNRECORDED, upgraded.getColor());
+        assertEquals("merle", upgraded.colorLabel());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void upgradeIsRefusedUntilTheAppHandlesTheCompactEncoding() {
+        PetState legacy = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        new PetContractV2().upgrade(legacy);
+    }
+
+    @Test
+    public void legacyPetKeepsItsProvenanceAndRecords() {
+        StateRef retired = new StateRef(SecureHash.randomSHA256(), 0);
+        PetState legacy = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty())
+                .reissuedFrom(retired)
+                .vaccinated("RB-1", "2019-01-01", "2020-01-01")
+                .licensed("WO-1234", "2020-06-30");
+        PetStateV2 upgraded = PetStateV2.fromLegacy(legacy);
+
+        assertEquals(retired, upgraded.getReissuedFrom());
+        assertEquals("RB-1", upgraded.getRabiesLicense());
+        assertEquals(LocalDate.of(2019, 1, 1), upgraded.getRabiesIssueDate());
+        assertEquals(LocalDate.of(2020, 1, 1), upgraded.getRabiesExpireDate());
+        assertEquals("WO-1234", upgraded.getMuniLicense());
+        assertEquals(LocalDate.of(2020, 6, 30), upgraded.getMuniExpireDate());
+    }
+
+    @Test
+    public void bornTransactionChecksCompactFields() {
+        PetStateV2 pet = momo();
+        PetStateV2 noBreed = new PetStateV2(ALICE.getParty(), "Momo", Species.CANINE, PetCodes.UNRECORDED, null, Sex.FEMALE,
+                PetCodes.colorCode("beige"), null, LocalDate.of(2006, 10, 12), ALICE.getParty(), new UniqueIdentifier(), null,
+                null, null, null, null, null);
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, noBreed);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                return tx.failsWith("Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, pet);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void transferTransactionKeepsFixedFields() {
+        PetStateV2 petIn = momo();
+        PetStateV2 petOutSpecies = new PetStateV2(BOB.getParty(), "Momo", Species.FELINE, petIn.getBreed(), null, petIn.getSex(),
+                petIn.getColor(), null, petIn.getBirthDate(), ALICE.getParty(), petIn.getLinearId(), null,
+                null, null, null, null, null);
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, petIn);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, petOutSpecies);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet species type cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, petIn);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, petIn.withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void recordsAreKeptUpInTheCompactEncoding() {
+        PetStateV2 pet = momo();
+        PetStateV2 vaccinated = pet.vaccinated("RB-1", LocalDate.of(2019, 1, 1), LocalDate.of(2020, 1, 1));
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, pet);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, pet.vaccinated("RB-1", LocalDate.of(2020, 1, 1), LocalDate.of(2019, 1, 1)));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Rabies vaccination must expire after it is issued.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, pet);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, vaccinated);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.verifies();
+            });
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, vaccinated);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, vaccinated.lapsedOn(LocalDate.of(2020, 1, 1)));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(TimeWindow.fromOnly(Instant.parse("2019-12-31T12:00:00Z")));
+                return tx.failsWith("Only an expired vaccination can lapse.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContractV2.PET_CONTRACT_V2_ID, vaccinated);
+                tx.output(PetContractV2.PET_CONTRACT_V2_ID, vaccinated.lapsedOn(LocalDate.of(2020, 1, 1)));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(TimeWindow.fromOnly(Instant.parse("2020-01-02T12:00:00Z")));
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+}
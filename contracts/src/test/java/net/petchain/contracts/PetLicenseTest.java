@@ -0,0 +1,202 @@
+package net.petchain.contracts;
+
+import net.corda.core.contracts.TimeWindow;
+import net.corda.testing.node.MockServices;
+import net.petchain.states.PetState;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.petchain.utils.TestUtils.*;
+
+/**
+ * Vaccinate and License attach a new record to a pet and change nothing else about it; Lapse removes records once
+ * they have expired.
+ */
+public class PetLicenseTest {
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.petchain.contracts")
+    );
+
+    private static PetState momo() {
+        return new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+    }
+
+    @Test
+    public void vaccinateAttachesARabiesVaccination() {
+        PetState pet = momo();
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Pet vaccination should have at least one input.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.withNewOwner(BOB.getParty()).vaccinated("ABC000", "2019-09-01", "2021-08-31"));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Only the vaccination can change in a pet vaccination.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "2021-08-31").licensed("WO-1234", "2020-12-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Only the vaccination can change in a pet vaccination.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("", "2019-09-01", "2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Rabies license required for a pet vaccination.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "31/08/2021"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Rabies issue and expiry dates must be ISO-8601 dates.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "2019-09-01"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Rabies vaccination must expire after it is issued.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "2021-08-31"));
+                tx.command(BOB.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.failsWith("Owner required to sign a pet vaccination.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC000", "2019-09-01", "2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Vaccinate());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void licenseAttachesAMunicipalLicense() {
+        PetState pet = momo().vaccinated("ABC000", "2019-09-01", "2021-08-31");
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.vaccinated("ABC001", "2020-09-01", "2022-08-31").licensed("WO-1234", "2020-12-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.License());
+                return tx.failsWith("Only the license can change in a pet license.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.licensed(null, "2020-12-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.License());
+                return tx.failsWith("Municipal license required for a pet license.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.licensed("WO-1234", "2020-13-01"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.License());
+                return tx.failsWith("Municipal license expiry must be an ISO-8601 date.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.licensed("WO-1234", "2020-12-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.License());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void recordsAreFixedAtBirthAndAcrossTransfers() {
+        PetState pet = momo();
+        PetState vaccinated = pet.vaccinated("ABC000", "2019-09-01", "2021-08-31");
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, vaccinated);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                return tx.failsWith("Pet born cannot carry a vaccination or license.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, vaccinated.withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet vaccination cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, vaccinated);
+                tx.output(PetContract.PET_CONTRACT_ID, vaccinated.licensed("WO-1234", "2020-12-31").withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet license cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, vaccinated);
+                tx.output(PetContract.PET_CONTRACT_ID, vaccinated.withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void lapseRemovesOnlyExpiredRecords() {
+        PetState pet = momo().vaccinated("ABC000", "2019-09-01", "2021-08-31").licensed("WO-1234", "2021-12-31");
+        TimeWindow afterVaccinationExpired = TimeWindow.fromOnly(Instant.parse("2021-09-01T00:00:00Z"));
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                return tx.failsWith("Pet lapse must have a time window with a start.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(TimeWindow.fromOnly(Instant.parse("2021-08-31T23:59:59Z")));
+                return tx.failsWith("Only an expired vaccination can lapse.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-12-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(afterVaccinationExpired);
+                return tx.failsWith("Only an expired license can lapse.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(afterVaccinationExpired);
+                return tx.failsWith("Pet lapse must remove at least one record.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-08-31").withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Lapse());
+                tx.timeWindow(afterVaccinationExpired);
+                return tx.failsWith("Only expired records can change in a pet lapse.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-08-31"));
+                tx.command(BOB.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(afterVaccinationExpired);
+                return tx.failsWith("Owner required to sign a pet lapse.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.lapsedOn("2021-08-31"));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Lapse());
+                tx.timeWindow(afterVaccinationExpired);
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+}
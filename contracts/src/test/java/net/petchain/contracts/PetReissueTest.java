@@ -0,0 +1,160 @@
+package net.petchain.contracts;
+
+import net.corda.core.contracts.StateRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.testing.core.TestIdentity;
+import net.corda.testing.node.MockServices;
+import net.petchain.states.PetState;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.petchain.utils.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Retiring a pet ends its chain; the registry can then reissue it on a fresh chain that points back at the retired
+ * state.
+ */
+public class PetReissueTest {
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.petchain.contracts")
+    );
+    // The development registry, whose key is the one pinned into the contract by default.
+    private static final TestIdentity REGISTRY = new TestIdentity(PetContract.REGISTRY_NAME, 20191L);
+    // Claims the registry's name with a key of its own.
+    private static final TestIdentity IMPOSTOR = new TestIdentity(PetContract.REGISTRY_NAME);
+    private static final StateRef RETIRED = new StateRef(SecureHash.randomSHA256(), 0);
+
+    private static PetState momo() {
+        return new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+    }
+
+    @Test
+    public void retireConsumesThePetWithoutASuccessor() {
+        PetState pet = momo();
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, pet.withNewOwner(BOB.getParty()));
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Retire());
+                return tx.failsWith("Pet retirement should have zero outputs.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(BOB.getPublicKey(), new PetContract.Commands.Retire());
+                return tx.failsWith("Current owner required to sign a pet retirement.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Retire());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void reissueStartsAFreshChainSignedByTheRegistry() {
+        PetState pet = momo();
+        PetState reissued = pet.reissuedFrom(RETIRED);
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, pet);
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), REGISTRY.getPublicKey()), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("Pet reissue should have zero inputs.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, pet);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), REGISTRY.getPublicKey()), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("Reissued pet must record the state it was reissued from.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), CHARLIE.getPublicKey()), new PetContract.Commands.Reissue(CHARLIE.getParty()));
+                return tx.failsWith("Pets can only be reissued by the pet registry.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("The pet registry must sign a pet reissue.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(REGISTRY.getPublicKey(), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("Owner required to sign a pet reissue.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), REGISTRY.getPublicKey()), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void developmentRegistryHoldsThePinnedKey() {
+        assertEquals(PetContract.REGISTRY_KEY, REGISTRY.getPublicKey());
+    }
+
+    @Test
+    public void registryNameAloneCannotReissue() {
+        PetState reissued = momo().reissuedFrom(RETIRED);
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), IMPOSTOR.getPublicKey()), new PetContract.Commands.Reissue(IMPOSTOR.getParty()));
+                return tx.failsWith("Pets can only be reissued by the pet registry.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void reissuedPetsAreCheckedLikeNewborns() {
+        PetState breedless = new PetState(ALICE.getParty(), "Momo", "Canine", "", "female", "beige", "2006-10-12", ALICE.getParty())
+                .reissuedFrom(RETIRED);
+        PetState badLicense = momo().licensed("WO-1234", "31/12/2021").reissuedFrom(RETIRED);
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, breedless);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), REGISTRY.getPublicKey()), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.");
+            });
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, badLicense);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), REGISTRY.getPublicKey()), new PetContract.Commands.Reissue(REGISTRY.getParty()));
+                return tx.failsWith("Municipal license expiry must be an ISO-8601 date.");
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void provenanceIsKeptAcrossTransfersAndNeverBornWith() {
+        PetState reissued = momo().reissuedFrom(RETIRED);
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, reissued);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                return tx.failsWith("Pet born cannot be a reissued pet.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, reissued);
+                tx.output(PetContract.PET_CONTRACT_ID, new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), reissued.getLinearId()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet provenance cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, reissued);
+                tx.output(PetContract.PET_CONTRACT_ID, reissued.withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+}
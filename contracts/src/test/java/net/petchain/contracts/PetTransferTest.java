@@ -58,7 +58,7 @@ public class PetTransferTest {
     @Test
     public void mustIncludeTransferCommand() {
         PetState petIn = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
@@ -95,18 +95,18 @@ public class PetTransferTest {
     @Test
     public void mustIncludeInputAndOutputStates() {
         PetState petIn = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
                 tx.output(PetContract.PET_CONTRACT_ID, petOut); // output state only
                 tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
-                return tx.failsWith("Pet transfer should have one input.");
+                return tx.failsWith("Pet transfer should have at least one input.");
             });
             l.transaction(tx -> {
                 tx.input(PetContract.PET_CONTRACT_ID, petIn); // input state only
                 tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
-                return tx.failsWith("Pet transfer should have one output.");
+                return tx.failsWith("Pet transfer should have at least one output.");
             });
             l.transaction(tx -> {
                 tx.input(PetContract.PET_CONTRACT_ID, petIn);
@@ -124,7 +124,7 @@ public class PetTransferTest {
     @Test
     public void transferTransactionMustHaveCurrentAndNewOwnerSignatures() {
         PetState petIn = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
@@ -156,8 +156,8 @@ public class PetTransferTest {
     @Test
     public void transferTransactionMustHavePetName() {
         PetState petIn = new PetState(ALICE.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutx = new PetState(BOB.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutx = new PetState(BOB.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
@@ -182,8 +182,8 @@ public class PetTransferTest {
     @Test
     public void transferTransactionCurrentNewOwnerMustDiffer() {
         PetState petIn = new PetState(ALICE.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutx = new PetState(ALICE.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutx = new PetState(ALICE.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
@@ -208,12 +208,12 @@ public class PetTransferTest {
     @Test
     public void transferTransactionSomeFieldsMayNotChange() {
         PetState petIn = new PetState(ALICE.getParty(), "", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutSpecies = new PetState(BOB.getParty(), "Momo", "Feline", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutBreed = new PetState(BOB.getParty(), "Momo", "Canine", "Bulldog", "female", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutSex = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "male", "beige", "2006-10-12", ALICE.getParty());
-        PetState petOutColor = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "black", "2006-10-12", ALICE.getParty());
-        PetState petOutBirth = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2016-10-12", ALICE.getParty());
+        PetState petOut = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutSpecies = new PetState(BOB.getParty(), "Momo", "Feline", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutBreed = new PetState(BOB.getParty(), "Momo", "Canine", "Bulldog", "female", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutSex = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "male", "beige", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutColor = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "black", "2006-10-12", ALICE.getParty(), petIn.getLinearId());
+        PetState petOutBirth = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2016-10-12", ALICE.getParty(), petIn.getLinearId());
 
         ledger(ledgerServices, l -> {
             l.transaction(tx -> {
@@ -256,4 +256,75 @@ public class PetTransferTest {
         });
     }
 
+    /**
+     * The output must be the same pet as the input, identified by its linear id.
+     */
+    @Test
+    public void transferTransactionMustPreservePetIdentity() {
+        PetState petIn = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState petOutOtherPet = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, petIn);
+                tx.output(PetContract.PET_CONTRACT_ID, petOutOtherPet); // look-alike with a different identity
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet identity cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, petIn);
+                tx.output(PetContract.PET_CONTRACT_ID, petIn.withNewOwner(BOB.getParty()));
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
+    /**
+     * A group of pets can change hands in one transaction; each output is paired with the input at the same position.
+     */
+    @Test
+    public void transferTransactionMayMoveAGroupOfPets() {
+        PetState momoIn = new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+        PetState mimiIn = new PetState(CHARLIE.getParty(), "Mimi", "Feline", "Siamese", "male", "white", "2012-03-02", CHARLIE.getParty());
+        PetState momoOut = momoIn.withNewOwner(BOB.getParty());
+        PetState mimiOut = mimiIn.withNewOwner(BOB.getParty());
+
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, momoIn);
+                tx.input(PetContract.PET_CONTRACT_ID, mimiIn);
+                tx.output(PetContract.PET_CONTRACT_ID, momoOut); // one pet goes missing
+                tx.command(Arrays.asList(ALICE.getPublicKey(), CHARLIE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet transfer should have one output for each input.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, momoIn);
+                tx.input(PetContract.PET_CONTRACT_ID, mimiIn);
+                tx.output(PetContract.PET_CONTRACT_ID, mimiOut); // outputs out of order
+                tx.output(PetContract.PET_CONTRACT_ID, momoOut);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), CHARLIE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.failsWith("Pet identity cannot change in a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, momoIn);
+                tx.input(PetContract.PET_CONTRACT_ID, mimiIn);
+                tx.output(PetContract.PET_CONTRACT_ID, momoOut);
+                tx.output(PetContract.PET_CONTRACT_ID, mimiOut);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer()); // Charlie missing
+                return tx.failsWith("Current owner required to sign a pet transfer.");
+            });
+            l.transaction(tx -> {
+                tx.input(PetContract.PET_CONTRACT_ID, momoIn);
+                tx.input(PetContract.PET_CONTRACT_ID, mimiIn);
+                tx.output(PetContract.PET_CONTRACT_ID, momoOut);
+                tx.output(PetContract.PET_CONTRACT_ID, mimiOut);
+                tx.command(Arrays.asList(ALICE.getPublicKey(), CHARLIE.getPublicKey(), BOB.getPublicKey()), new PetContract.Commands.Transfer());
+                return tx.verifies();
+            });
+            return null;
+        });
+    }
+
 }
@@ -0,0 +1,84 @@
+package net.petchain.contracts;
+
+import net.corda.testing.node.MockServices;
+import net.petchain.states.PetState;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static net.corda.testing.node.NodeTestUtils.ledger;
+import static net.petchain.utils.TestUtils.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The validator gives the contract's verdict, and the contract's message, without a transaction.
+ */
+public class PetValidatorTest {
+    static private final MockServices ledgerServices = new MockServices(
+            Arrays.asList("net.corda.training", "net.petchain.contracts")
+    );
+
+    private static PetState momo() {
+        return new PetState(ALICE.getParty(), "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", ALICE.getParty());
+    }
+
+    @Test
+    public void validPetsPass() {
+        PetState pet = momo();
+        assertNull(PetValidator.bornAttributesViolation("Canine", "Cockapoo", "beige", "female", "2006-10-12"));
+        assertNull(PetValidator.bornViolation(pet));
+        assertNull(PetValidator.newOwnerViolation(ALICE.getParty(), BOB.getParty()));
+        assertNull(PetValidator.transferViolation(pet, pet.withNewOwner(BOB.getParty())));
+        assertNull(PetValidator.vaccinationViolation("ABC000", "2019-09-01", "2021-08-31"));
+        assertNull(PetValidator.licenseViolation("WO-1234", "2021-12-31"));
+    }
+
+    @Test
+    public void bornViolationsAreTheContractsMessages() {
+        String violation = PetValidator.bornAttributesViolation("Canine", "", "beige", "female", "2006-10-12");
+        assertEquals("Pet's breed type, e.g., Bulldog, Cockapoo, required when recording birth.", violation);
+        assertEquals("Pet's species type, e.g., canine, feline, required when recording birth.",
+                PetValidator.bornAttributesViolation(null, "Cockapoo", "beige", "female", "2006-10-12"));
+        assertEquals("Pet born cannot carry a vaccination or license.",
+                PetValidator.bornViolation(momo().licensed("WO-1234", "2021-12-31")));
+        assertEquals("Owner and Breeder must be the same when pet is born.",
+                PetValidator.bornViolation(momo().withNewOwner(BOB.getParty())));
+
+        PetState breedless = new PetState(ALICE.getParty(), "Momo", "Canine", "", "female", "beige", "2006-10-12", ALICE.getParty());
+        ledger(ledgerServices, l -> {
+            l.transaction(tx -> {
+                tx.output(PetContract.PET_CONTRACT_ID, breedless);
+                tx.command(ALICE.getPublicKey(), new PetContract.Commands.Born());
+                return tx.failsWith(violation);
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void transferViolationsCatchAnyChangeButTheOwner() {
+        PetState pet = momo();
+        assertEquals("Output Owner must differ from Input Owner in a pet transfer.",
+                PetValidator.newOwnerViolation(ALICE.getParty(), ALICE.getParty()));
+        assertEquals("Output Owner must differ from Input Owner in a pet transfer.", PetValidator.transferViolation(pet, pet));
+
+        PetState recoloured = new PetState(BOB.getParty(), "Momo", "Canine", "Cockapoo", "female", "black", "2006-10-12",
+                ALICE.getParty(), pet.getLinearId());
+        assertEquals("Pet color cannot change in a pet transfer.", PetValidator.transferViolation(pet, recoloured));
+        assertEquals("Pet vaccination cannot change in a pet transfer.", PetValidator.transferViolation(
+                pet, pet.withNewOwner(BOB.getParty()).vaccinated("ABC000", "2019-09-01", "2021-08-31")));
+    }
+
+    @Test
+    public void recordViolationsCheckLicensesAndDates() {
+        assertEquals("Rabies license required for a pet vaccination.",
+                PetValidator.vaccinationViolation("", "2019-09-01", "2021-08-31"));
+        assertEquals("Rabies issue and expiry dates must be ISO-8601 dates.",
+                PetValidator.vaccinationViolation("ABC000", "2019-9-1", "2021-08-31"));
+        assertEquals("Rabies vaccination must expire after it is issued.",
+                PetValidator.vaccinationViolation("ABC000", "2021-08-31", "2019-09-01"));
+        assertEquals("Municipal license required for a pet license.", PetValidator.licenseViolation(null, "2021-12-31"));
+        assertEquals("Municipal license expiry must be an ISO-8601 date.", PetValidator.licenseViolation("WO-1234", "31/12/2021"));
+    }
+}
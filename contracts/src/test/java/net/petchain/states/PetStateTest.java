@@ -2,12 +2,18 @@ package net.petchain.states;
 
 import net.petchain.states.PetState;
 import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.LinearState;
 import net.corda.core.identity.CordaX500Name;
 import net.corda.core.identity.Party;
+import net.corda.core.schemas.QueryableState;
 import net.corda.testing.core.TestIdentity;
+import net.petchain.schemas.PetSchemaV1;
 import org.junit.Test;
 
+import java.time.Instant;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class PetStateTest {
@@ -29,9 +35,32 @@ public class PetStateTest {
         assertEquals("beige", petState.getColor());
         assertEquals("2006-10-12", petState.getBirthDate());
         assertEquals(jan, petState.getBreeder());
-//        assertEquals("ABC000", petState.getRabiesLicense());
-//        assertEquals("2019-09-01", petState.getRabiesIssueDate());
-//        assertEquals("2021-08-31", petState.getRabiesExpireDate());
+        assertNull(petState.getRabiesLicense());
+        assertNull(petState.getMuniLicense());
+    }
+
+    @Test
+    public void vaccinationAndLicenseAreKeptAcrossOwners() {
+        Party bob = new TestIdentity(new CordaX500Name("Bob", "TestCity", "US")).getParty();
+        PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan)
+                .vaccinated("ABC000", "2019-09-01", "2021-08-31")
+                .licensed("WO-1234", "2020-12-31");
+        PetState transferred = petState.withNewOwner(bob);
+        assertEquals("ABC000", transferred.getRabiesLicense());
+        assertEquals("2019-09-01", transferred.getRabiesIssueDate());
+        assertEquals("2021-08-31", transferred.getRabiesExpireDate());
+        assertEquals("WO-1234", transferred.getMuniLicense());
+        assertEquals("2020-12-31", transferred.getMuniExpireDate());
+    }
+
+    @Test
+    public void theEarlierRecordExpiresFirst() {
+        PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan);
+        assertNull(petState.getEarliestExpireDate());
+        PetState vaccinated = petState.vaccinated("ABC000", "2019-09-01", "2021-08-31");
+        assertEquals("2021-08-31", vaccinated.getEarliestExpireDate());
+        assertEquals("2020-12-31", vaccinated.licensed("WO-1234", "2020-12-31").getEarliestExpireDate());
+        assertEquals(Instant.parse("2021-09-01T00:00:00Z"), PetState.expiredAt("2021-08-31"));
     }
 
     @Test
@@ -39,10 +68,44 @@ public class PetStateTest {
         assertTrue(new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan) instanceof ContractState);
     }
 
+    @Test
+    public void petStateIsLinearAndKeepsItsIdentityAcrossOwners() {
+        Party bob = new TestIdentity(new CordaX500Name("Bob", "TestCity", "US")).getParty();
+        PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan);
+        assertTrue(petState instanceof LinearState);
+        PetState transferred = petState.withNewOwner(bob);
+        assertEquals(bob, transferred.getOwner());
+        assertEquals(petState.getLinearId(), transferred.getLinearId());
+    }
+
     @Test
     public void petStateHasOneParticipantTheOwner() {
         PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan);
         assertEquals(1, petState.getParticipants().size());
         assertTrue(petState.getParticipants().contains(jan));
     }
+
+    @Test
+    public void petStateMapsToIndexedPetSchemaV1() {
+        PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan);
+        assertTrue(petState instanceof QueryableState);
+        PetSchemaV1.PersistentPet persistentPet = (PetSchemaV1.PersistentPet) petState.generateMappedObject(new PetSchemaV1());
+        assertEquals(petState.getLinearId().getId(), persistentPet.getPetId());
+        assertEquals(jan.getName().toString(), persistentPet.getOwner());
+        assertEquals(jan.getName().toString(), persistentPet.getBreeder());
+        assertEquals("Momo", persistentPet.getPetName());
+        assertEquals("Canine", persistentPet.getSpecies());
+        assertEquals("Cockapoo", persistentPet.getBreed());
+        assertEquals("2006-10-12", persistentPet.getBirthDate());
+    }
+
+    @Test
+    public void expiryDatesAreMappedToIndexedColumns() {
+        PetState petState = new PetState(jan, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", jan)
+                .vaccinated("ABC000", "2019-09-01", "2021-08-31")
+                .licensed("WO-1234", "2020-12-31");
+        PetSchemaV1.PersistentPet persistentPet = (PetSchemaV1.PersistentPet) petState.generateMappedObject(new PetSchemaV1());
+        assertEquals("2021-08-31", persistentPet.getRabiesExpireDate());
+        assertEquals("2020-12-31", persistentPet.getMuniExpireDate());
+    }
 }
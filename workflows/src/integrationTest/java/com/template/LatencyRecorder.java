@@ -0,0 +1,40 @@
+package com.template;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples, in nanoseconds, and reports percentiles over all of them.
+ *
+ * Every sample is kept, so percentiles are exact rather than bucketed. A load run records at most a few hundred
+ * thousand samples, which is a few megabytes.
+ */
+class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * The latency, in milliseconds, that a fraction {@code quantile} of samples did not exceed, or NaN if there are no
+     * samples.
+     */
+    synchronized double percentileMillis(double quantile) {
+        if (count == 0) return Double.NaN;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+
+    String summary() {
+        return String.format("n=%d p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms",
+                count(), percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999), percentileMillis(1.0));
+    }
+}
@@ -0,0 +1,246 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.template.flows.BatchBirthFlow;
+import com.template.flows.TransferPetFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.messaging.FlowProgressHandle;
+import net.corda.testing.driver.DriverParameters;
+import net.corda.testing.driver.NodeHandle;
+import net.corda.testing.driver.NodeParameters;
+import net.corda.testing.driver.VerifierType;
+import net.corda.testing.node.NotarySpec;
+import net.corda.testing.node.TestCordapp;
+import net.corda.testing.node.User;
+import net.petchain.states.PetState;
+import rx.Subscription;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static net.corda.testing.driver.Driver.driver;
+
+/**
+ * Drives a mix of pet registrations and transfers at a fixed rate against the deployNodes topology (a non-validating
+ * Notary, PartyA and PartyB), started in process by the driver, and reports:
+ *
+ * - p50/p99/p999 flow latency, overall and per operation;
+ * - transactions per second;
+ * - notary time: from the flow asking the notary to sign until the notary's answer, as seen in the flow's progress.
+ *   It covers the notary's queueing and commit time plus the network round trip.
+ *
+ * Load is open-loop: operations are scheduled every {@code 1/rate} seconds whatever the state of earlier ones, and
+ * latency is measured from the scheduled time, so a saturated network shows up as growing latency rather than as a
+ * quietly lowered rate. At most {@code maxInFlight} operations run at once; a scheduled operation that finds no free
+ * slot is counted as dropped. The operation mix is drawn from a seeded {@link Random}, so the same settings replay
+ * the same workload.
+ *
+ * Settings are read from system properties (defaults in brackets): load.rate [20 ops/s], load.duration [60 s],
+ * load.warmup [10 s], load.transferRatio [0.5], load.maxInFlight [500], load.seed [42] and load.report
+ * [build/reports/load/load-report.txt]. Run it with {@code ./gradlew workflows:loadTest -Pload.rate=50}.
+ */
+public class LoadGenerator {
+    static final CordaX500Name NOTARY = new CordaX500Name("Notary", "London", "GB");
+    static final CordaX500Name PARTY_A = new CordaX500Name("PartyA", "London", "GB");
+    static final CordaX500Name PARTY_B = new CordaX500Name("PartyB", "New York", "US");
+
+    // Labels of FinalityFlow's and NotaryFlow.Client's progress steps.
+    private static final String NOTARY_REQUESTED = "Requesting signature by notary service";
+    private static final String NOTARY_VALIDATING = "Validating response from Notary service";
+    private static final String BROADCASTING = "Broadcasting transaction to participants";
+
+    private final double rate;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double transferRatio;
+    private final int maxInFlight;
+    private final Random random;
+
+    private final List<NodeHandle> nodes;
+    private final List<Party> parties;
+    private final List<ConcurrentLinkedQueue<UniqueIdentifier>> ownedPets;
+    private final Semaphore inFlight;
+    private final ExecutorService issuers = Executors.newFixedThreadPool(4);
+
+    private final LatencyRecorder all = new LatencyRecorder();
+    private final LatencyRecorder registrations = new LatencyRecorder();
+    private final LatencyRecorder transfers = new LatencyRecorder();
+    private final LatencyRecorder notary = new LatencyRecorder();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong petCounter = new AtomicLong();
+
+    LoadGenerator(List<NodeHandle> nodes) {
+        this.rate = Double.parseDouble(System.getProperty("load.rate", "20"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.getLong("load.duration", 60));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.getLong("load.warmup", 10));
+        this.transferRatio = Double.parseDouble(System.getProperty("load.transferRatio", "0.5"));
+        this.maxInFlight = Integer.getInteger("load.maxInFlight", 500);
+        this.random = new Random(Long.getLong("load.seed", 42));
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.nodes = nodes;
+        this.parties = ImmutableList.of(identity(nodes.get(0)), identity(nodes.get(1)));
+        this.ownedPets = ImmutableList.of(new ConcurrentLinkedQueue<>(), new ConcurrentLinkedQueue<>());
+    }
+
+    public static void main(String[] args) {
+        final List<User> rpcUsers = ImmutableList.of(new User("user1", "test", ImmutableSet.of("ALL")));
+        final DriverParameters parameters = new DriverParameters()
+                .withStartNodesInProcess(true)
+                .withNotarySpecs(Collections.singletonList(
+                        new NotarySpec(NOTARY, false, Collections.emptyList(), VerifierType.InMemory, null)))
+                .withCordappsForAllNodes(ImmutableList.of(
+                        TestCordapp.findCordapp("net.petchain.contracts"),
+                        TestCordapp.findCordapp("com.template.flows")));
+
+        driver(parameters, dsl -> {
+            try {
+                CordaFuture<NodeHandle> partyA = dsl.startNode(new NodeParameters().withProvidedName(PARTY_A).withRpcUsers(rpcUsers));
+                CordaFuture<NodeHandle> partyB = dsl.startNode(new NodeParameters().withProvidedName(PARTY_B).withRpcUsers(rpcUsers));
+                String report = new LoadGenerator(ImmutableList.of(partyA.get(), partyB.get())).run();
+                System.out.println(report);
+                Path reportFile = Paths.get(System.getProperty("load.report", "build/reports/load/load-report.txt"));
+                Files.createDirectories(reportFile.toAbsolutePath().getParent());
+                Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                throw new RuntimeException("Caught exception during load run: ", e);
+            }
+            return null;
+        });
+    }
+
+    String run() throws InterruptedException {
+        final long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long start = System.nanoTime();
+        final long measureFrom = start + warmupNanos;
+        final long end = measureFrom + durationNanos;
+
+        for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            final boolean measured = scheduled >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) dropped.incrementAndGet();
+                continue;
+            }
+            final long intendedStart = scheduled;
+            final int node = random.nextInt(2);
+            final boolean transfer = random.nextDouble() < transferRatio;
+            issuers.execute(() -> issue(node, transfer, intendedStart, measured));
+        }
+
+        // Let the operations still running finish before reporting.
+        inFlight.tryAcquire(maxInFlight, 5, TimeUnit.MINUTES);
+        issuers.shutdown();
+        return report();
+    }
+
+    private void issue(int node, boolean transfer, long intendedStart, boolean measured) {
+        try {
+            // A node with no pets to sell registers one instead, so the mix self-corrects during warm-up.
+            UniqueIdentifier petId = transfer ? ownedPets.get(node).poll() : null;
+            if (petId != null) {
+                transfer(node, petId, intendedStart, measured);
+            } else {
+                register(node, intendedStart, measured);
+            }
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            inFlight.release();
+        }
+    }
+
+    private void register(int node, long intendedStart, boolean measured) {
+        final Party owner = parties.get(node);
+        final PetState pet = new PetState(owner, "Load " + petCounter.incrementAndGet(), "Canine", "Cockapoo",
+                "female", "beige", "2019-05-01", owner);
+        final FlowProgressHandle<List<SecureHash>> handle = rpc(node).startTrackedFlowDynamic(
+                BatchBirthFlow.class, Collections.singletonList(pet), 1);
+        track(handle, intendedStart, measured, registrations, () -> ownedPets.get(node).add(pet.getLinearId()));
+    }
+
+    private void transfer(int node, UniqueIdentifier petId, long intendedStart, boolean measured) {
+        final int buyer = 1 - node;
+        final FlowProgressHandle<SecureHash> handle = rpc(node).startTrackedFlowDynamic(
+                TransferPetFlow.class, petId, parties.get(buyer));
+        track(handle, intendedStart, measured, transfers, () -> ownedPets.get(buyer).add(petId));
+    }
+
+    private <T> void track(FlowProgressHandle<T> handle, long intendedStart, boolean measured,
+                       LatencyRecorder byOperation, Runnable onSuccess) {
+        final long[] notaryRequested = {0L};
+        final long[] notaryAnswered = {0L};
+        final Subscription progress = handle.getProgress().subscribe(label -> {
+            long now = System.nanoTime();
+            if (NOTARY_REQUESTED.equals(label)) {
+                if (notaryRequested[0] == 0L) notaryRequested[0] = now;
+            } else if (notaryRequested[0] != 0L && notaryAnswered[0] == 0L
+                    && (NOTARY_VALIDATING.equals(label) || BROADCASTING.equals(label))) {
+                notaryAnswered[0] = now;
+            }
+        }, error -> { });
+
+        handle.getReturnValue().then(result -> {
+            long finished = System.nanoTime();
+            progress.unsubscribe();
+            handle.close();
+            try {
+                result.get();
+                onSuccess.run();
+                if (measured) {
+                    all.record(finished - intendedStart);
+                    byOperation.record(finished - intendedStart);
+                    if (notaryRequested[0] != 0L) {
+                        notary.record((notaryAnswered[0] != 0L ? notaryAnswered[0] : finished) - notaryRequested[0]);
+                    }
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            } finally {
+                inFlight.release();
+            }
+            return null;
+        });
+    }
+
+    private String report() {
+        final double seconds = durationNanos / 1e9;
+        return String.format(
+                "Pet load run: target %.1f ops/s for %.0fs after %ds warm-up, transfer ratio %.2f, max in flight %d%n" +
+                "  throughput   %.1f tx/s (%d completed, %d failed, %d dropped)%n" +
+                "  all          %s%n" +
+                "  register     %s%n" +
+                "  transfer     %s%n" +
+                "  notary       %s%n",
+                rate, seconds, TimeUnit.NANOSECONDS.toSeconds(warmupNanos), transferRatio, maxInFlight,
+                all.count() / seconds, all.count(), failures.get(), dropped.get(),
+                all.summary(), registrations.summary(), transfers.summary(), notary.summary());
+    }
+
+    private CordaRPCOps rpc(int node) {
+        return nodes.get(node).getRpc();
+    }
+
+    private static Party identity(NodeHandle node) {
+        return node.getNodeInfo().getLegalIdentities().get(0);
+    }
+}
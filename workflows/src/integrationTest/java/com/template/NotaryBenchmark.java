@@ -0,0 +1,174 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.template.flows.BatchBirthFlow;
+import com.template.flows.TransferPetFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.testing.driver.DriverParameters;
+import net.corda.testing.driver.NodeHandle;
+import net.corda.testing.driver.NodeParameters;
+import net.corda.testing.driver.VerifierType;
+import net.corda.testing.node.NotarySpec;
+import net.corda.testing.node.TestCordapp;
+import net.corda.testing.node.User;
+import net.petchain.states.PetState;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.corda.testing.driver.Driver.driver;
+
+/**
+ * Compares pet transfer throughput with one notary and with {@code bench.notaries} notaries, which pets are sharded
+ * over by {@link com.template.flows.NotarySelector}.
+ *
+ * Each round starts a fresh driver network of PartyA, PartyB and its notaries, registers {@code bench.pets} pets on
+ * PartyA and then transfers them back and forth between the two parties. Load is closed-loop: {@code bench.concurrency}
+ * workers each hold a share of the pets and start the next transfer as soon as their last one finishes, so every
+ * round runs at the throughput the network can sustain. A pet is only ever moved by the worker that holds it, so no
+ * two transfers race for the same state. Transfers are measured for {@code bench.duration} seconds after
+ * {@code bench.warmup} seconds.
+ *
+ * Settings are read from system properties (defaults in brackets): bench.notaries [3], bench.validating [false],
+ * bench.pets [400], bench.concurrency [32], bench.duration [60 s], bench.warmup [10 s] and bench.report
+ * [build/reports/notary/notary-benchmark.txt]. Run it with {@code ./gradlew workflows:notaryBenchmark -Pbench.notaries=4}.
+ */
+public class NotaryBenchmark {
+    private final int pets;
+    private final int concurrency;
+    private final long durationNanos;
+    private final long warmupNanos;
+
+    private final List<NodeHandle> nodes;
+    private final List<Party> parties;
+
+    private final LatencyRecorder transfers = new LatencyRecorder();
+    private final AtomicLong failures = new AtomicLong();
+
+    NotaryBenchmark(List<NodeHandle> nodes) {
+        this.pets = Integer.getInteger("bench.pets", 400);
+        this.concurrency = Integer.getInteger("bench.concurrency", 32);
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.getLong("bench.duration", 60));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.getLong("bench.warmup", 10));
+        this.nodes = nodes;
+        this.parties = ImmutableList.of(identity(nodes.get(0)), identity(nodes.get(1)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int notaries = Integer.getInteger("bench.notaries", 3);
+        final boolean validating = Boolean.getBoolean("bench.validating");
+        final StringBuilder report = new StringBuilder(String.format(
+                "Notary benchmark: %s notaries, closed-loop pet transfers between PartyA and PartyB%n",
+                validating ? "validating" : "non-validating"));
+        report.append(round(1, validating));
+        if (notaries > 1) report.append(round(notaries, validating));
+
+        System.out.println(report);
+        Path reportFile = Paths.get(System.getProperty("bench.report", "build/reports/notary/notary-benchmark.txt"));
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        Files.write(reportFile, report.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs the benchmark on a fresh network with {@code notaries} notaries and returns its report line.
+     */
+    private static String round(int notaries, boolean validating) {
+        final List<User> rpcUsers = ImmutableList.of(new User("user1", "test", ImmutableSet.of("ALL")));
+        final List<NotarySpec> notarySpecs = new ArrayList<>(notaries);
+        notarySpecs.add(new NotarySpec(LoadGenerator.NOTARY, validating, Collections.emptyList(), VerifierType.InMemory, null));
+        for (int n = 2; n <= notaries; n++) {
+            notarySpecs.add(new NotarySpec(new CordaX500Name("Notary" + n, "London", "GB"), validating,
+                    Collections.emptyList(), VerifierType.InMemory, null));
+        }
+        final DriverParameters parameters = new DriverParameters()
+                .withStartNodesInProcess(true)
+                .withNotarySpecs(notarySpecs)
+                .withCordappsForAllNodes(ImmutableList.of(
+                        TestCordapp.findCordapp("net.petchain.contracts"),
+                        TestCordapp.findCordapp("com.template.flows")));
+
+        return driver(parameters, dsl -> {
+            try {
+                CordaFuture<NodeHandle> partyA = dsl.startNode(new NodeParameters().withProvidedName(LoadGenerator.PARTY_A).withRpcUsers(rpcUsers));
+                CordaFuture<NodeHandle> partyB = dsl.startNode(new NodeParameters().withProvidedName(LoadGenerator.PARTY_B).withRpcUsers(rpcUsers));
+                return String.format("  %d notar%-3s %s%n", notaries, notaries == 1 ? "y" : "ies",
+                        new NotaryBenchmark(ImmutableList.of(partyA.get(), partyB.get())).run());
+            } catch (Exception e) {
+                throw new RuntimeException("Caught exception during notary benchmark: ", e);
+            }
+        });
+    }
+
+    String run() throws Exception {
+        final List<UniqueIdentifier> petIds = register();
+        final long measureFrom = System.nanoTime() + warmupNanos;
+        final long end = measureFrom + durationNanos;
+
+        // Worker w holds pets w, w + concurrency, w + 2 * concurrency, ... and moves them in turn.
+        final ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            final List<UniqueIdentifier> held = new ArrayList<>();
+            for (int i = w; i < petIds.size(); i += concurrency) held.add(petIds.get(i));
+            if (!held.isEmpty()) workers.execute(() -> transferUntil(held, measureFrom, end));
+        }
+        workers.shutdown();
+        workers.awaitTermination(durationNanos + warmupNanos + TimeUnit.MINUTES.toNanos(5), TimeUnit.NANOSECONDS);
+
+        final double seconds = durationNanos / 1e9;
+        return String.format("throughput %.1f tx/s (%d completed, %d failed)  %s",
+                transfers.count() / seconds, transfers.count(), failures.get(), transfers.summary());
+    }
+
+    /**
+     * Registers the benchmark's pets on PartyA. BatchBirthFlow spreads them over the notaries.
+     */
+    private List<UniqueIdentifier> register() throws Exception {
+        final Party owner = parties.get(0);
+        final List<PetState> born = new ArrayList<>(pets);
+        for (int i = 0; i < pets; i++) {
+            born.add(new PetState(owner, "Bench " + i, "Canine", "Cockapoo", "female", "beige", "2019-05-01", owner));
+        }
+        nodes.get(0).getRpc().startFlowDynamic(BatchBirthFlow.class, born, BatchBirthFlow.DEFAULT_BATCH_SIZE)
+                .getReturnValue().get();
+        final List<UniqueIdentifier> petIds = new ArrayList<>(pets);
+        for (PetState pet : born) petIds.add(pet.getLinearId());
+        return petIds;
+    }
+
+    /**
+     * Moves the held pets between the parties, one transfer at a time, until {@code end}. Each pet starts on PartyA.
+     */
+    private void transferUntil(List<UniqueIdentifier> held, long measureFrom, long end) {
+        final int[] owners = new int[held.size()];
+        for (int i = 0; System.nanoTime() < end; i = (i + 1) % held.size()) {
+            final int seller = owners[i];
+            final long started = System.nanoTime();
+            try {
+                nodes.get(seller).getRpc().startFlowDynamic(TransferPetFlow.class, held.get(i), parties.get(1 - seller))
+                        .getReturnValue().get();
+                owners[i] = 1 - seller;
+                final long finished = System.nanoTime();
+                if (started >= measureFrom && finished <= end) transfers.record(finished - started);
+            } catch (Exception e) {
+                if (started >= measureFrom) failures.incrementAndGet();
+            }
+        }
+    }
+
+    private static Party identity(NodeHandle node) {
+        return node.getNodeInfo().getLegalIdentities().get(0);
+    }
+}
@@ -0,0 +1,146 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FinalityFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// *********************
+// * Batch birth flow  *
+// *********************
+
+/**
+ * Records the birth of many pets owned by this node, grouping them into Born transactions of at most
+ * {@code batchSize} outputs each. Every transaction costs one signature and one finality round instead of one per pet.
+ * Each pet is born under the notary {@link NotarySelector} picks for it, so on a network with several notaries the
+ * pets are batched per notary.
+ *
+ * Returns the ids of the recorded transactions, in the order the batches were recorded.
+ */
+@InitiatingFlow
+@StartableByRPC
+public class BatchBirthFlow extends FlowLogic<List<SecureHash>> {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating transaction for the next batch of births.");
+    private static final ProgressTracker.Step VERIFYING_TRANSACTION = new ProgressTracker.Step("Verifying contract constraints.");
+    private static final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing transaction with our private key.");
+    private static final ProgressTracker.Step FINALISING_TRANSACTION = new ProgressTracker.Step("Recording transaction.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return FinalityFlow.Companion.tracker();
+        }
+    };
+
+    private final ProgressTracker progressTracker = new ProgressTracker(
+            GENERATING_TRANSACTION,
+            VERIFYING_TRANSACTION,
+            SIGNING_TRANSACTION,
+            FINALISING_TRANSACTION
+    );
+
+    private final List<PetState> pets;
+    private final int batchSize;
+
+    public BatchBirthFlow(List<PetState> pets) {
+        this(pets, DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchBirthFlow(List<PetState> pets, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least one.");
+        this.pets = pets;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public List<SecureHash> call() throws FlowException {
+        final PetFlowTimer timer = new PetFlowTimer(getServiceHub(), "BatchBirthFlow", getRunId().getUuid().toString());
+        try {
+            final List<SecureHash> recorded = recordBirths(timer);
+            timer.done(getLogger());
+            return recorded;
+        } catch (FlowException | RuntimeException e) {
+            timer.failed(getLogger(), e);
+            throw e;
+        }
+    }
+
+    @Suspendable
+    private List<SecureHash> recordBirths(PetFlowTimer timer) throws FlowException {
+        final Party me = getOurIdentity();
+        for (PetState pet : pets) {
+            if (!pet.getOwner().equals(me)) {
+                throw new FlowException("Only pets owned by " + me.getName() + " can be registered by this node.");
+            }
+        }
+
+        final List<Party> notaries = NotarySelector.pool(getServiceHub());
+        final Map<Party, List<PetState>> byNotary = new LinkedHashMap<>();
+        for (PetState pet : pets) {
+            final Party notary = notaries.get(NotarySelector.shard(pet.getLinearId().getId(), notaries.size()));
+            byNotary.computeIfAbsent(notary, n -> new ArrayList<>()).add(pet);
+        }
+        final List<SecureHash> recorded = new ArrayList<>();
+        for (Map.Entry<Party, List<PetState>> group : byNotary.entrySet()) {
+            recordBatches(timer, me, group.getKey(), group.getValue(), recorded);
+        }
+        return recorded;
+    }
+
+    @Suspendable
+    private void recordBatches(PetFlowTimer timer, Party me, Party notary, List<PetState> group, List<SecureHash> recorded) throws FlowException {
+        for (int from = 0; from < group.size(); from += batchSize) {
+            final int to = Math.min(from + batchSize, group.size());
+            final long batchStartedAt = System.nanoTime();
+
+            progressTracker.setCurrentStep(GENERATING_TRANSACTION);
+            timer.step(PetFlowMetrics.BUILD);
+            final TransactionBuilder builder = new TransactionBuilder(notary);
+            for (int i = from; i < to; i++) {
+                builder.addOutputState(group.get(i), PetContract.PET_CONTRACT_ID);
+            }
+            builder.addCommand(new PetContract.Commands.Born(), me.getOwningKey());
+
+            progressTracker.setCurrentStep(VERIFYING_TRANSACTION);
+            timer.step(PetFlowMetrics.VERIFY);
+            builder.verify(getServiceHub());
+
+            progressTracker.setCurrentStep(SIGNING_TRANSACTION);
+            timer.step(PetFlowMetrics.SIGN);
+            final SignedTransaction signedTx = getServiceHub().signInitialTransaction(builder);
+
+            // The owner is the only participant of a birth, so there is no one to distribute the transaction to. A
+            // birth has no inputs, so the notary is not asked to sign and finality is only the vault write.
+            progressTracker.setCurrentStep(FINALISING_TRANSACTION);
+            timer.step(PetFlowMetrics.RECORD);
+            final SecureHash txId = subFlow(new FinalityFlow(signedTx, Collections.emptyList(), FINALISING_TRANSACTION.childProgressTracker())).getId();
+            recorded.add(txId);
+
+            final List<UniqueIdentifier> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) batch.add(group.get(i).getLinearId());
+            PetEvents.recorded(getLogger(), PetEvents.BORN, timer.getTraceId(), txId, batch, System.nanoTime() - batchStartedAt);
+        }
+    }
+}
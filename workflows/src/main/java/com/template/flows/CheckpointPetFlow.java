@@ -0,0 +1,151 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.CollectSignaturesFlow;
+import net.corda.core.flows.FinalityFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.SendTransactionFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import javax.persistence.EntityManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+// *************************
+// * Checkpoint pet flow   *
+// *************************
+
+/**
+ * Caps the history a pet's future owners must resolve. The owner retires the pet's current state, then the pet
+ * registry reissues it on a fresh chain whose first state has no inputs and points back at the retired state.
+ *
+ * The registry is shown the retirement, and with it the full history, once; {@link CheckpointPetFlowResponder}
+ * checks that the retirement is notarised and that the reissued pet matches the retired one before signing. Later
+ * transfers only resolve the chain from the reissue onwards.
+ *
+ * The retirement and the reissue are separate transactions, since the reissue must not have the retired state as an
+ * input. Once the retirement is recorded it is remembered in {@link PendingReissueSchemaV1} until the reissue is. If
+ * the reissue fails, for example because the registry refused it, the pet has no current state; running this flow
+ * again for the pet skips the retirement and retries the reissue.
+ *
+ * Returns the id of the reissue transaction.
+ */
+@InitiatingFlow(version = 2)
+@StartableByRPC
+public class CheckpointPetFlow extends FlowLogic<SecureHash> {
+    private static final ProgressTracker.Step RETIRING = new ProgressTracker.Step("Retiring the pet's current state.");
+    private static final ProgressTracker.Step REISSUING = new ProgressTracker.Step("Reissuing the pet on a fresh chain.");
+    private static final ProgressTracker.Step GATHERING_SIGS = new ProgressTracker.Step("Gathering the registry's signature.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return CollectSignaturesFlow.Companion.tracker();
+        }
+    };
+    private static final ProgressTracker.Step FINALISING_TRANSACTION = new ProgressTracker.Step("Obtaining notary signature and recording transaction.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return FinalityFlow.Companion.tracker();
+        }
+    };
+
+    private final ProgressTracker progressTracker = new ProgressTracker(
+            RETIRING,
+            REISSUING,
+            GATHERING_SIGS,
+            FINALISING_TRANSACTION
+    );
+
+    private final UniqueIdentifier linearId;
+    private final Party registry;
+
+    public CheckpointPetFlow(UniqueIdentifier linearId, Party registry) {
+        this.linearId = linearId;
+        this.registry = registry;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public SecureHash call() throws FlowException {
+        final Party me = getOurIdentity();
+        if (!registry.getOwningKey().equals(PetContract.REGISTRY_KEY)) {
+            throw new FlowException("Pets can only be reissued by " + PetContract.REGISTRY_NAME + " with the pinned registry key.");
+        }
+
+        progressTracker.setCurrentStep(RETIRING);
+        final UUID petId = linearId.getId();
+        PendingReissueSchemaV1.PendingReissue pending = getServiceHub().withEntityManager(
+                (EntityManager em) -> em.find(PendingReissueSchemaV1.PendingReissue.class, petId));
+        if (pending == null) {
+            final QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                    null, Collections.singletonList(petId), null, Vault.StateStatus.UNCONSUMED);
+            final List<StateAndRef<PetState>> current = getServiceHub().getVaultService().queryBy(PetState.class, criteria).getStates();
+            if (current.isEmpty()) throw new FlowException("No current state for pet " + linearId + ".");
+            final StateAndRef<PetState> toRetire = current.get(0);
+            if (!toRetire.getState().getData().getOwner().equals(me)) {
+                throw new FlowException("Only the current owner can checkpoint pet " + linearId + ".");
+            }
+
+            final TransactionBuilder retireBuilder = new TransactionBuilder(toRetire.getState().getNotary())
+                    .addInputState(toRetire)
+                    .addCommand(new PetContract.Commands.Retire(), me.getOwningKey());
+            retireBuilder.verify(getServiceHub());
+            final SignedTransaction retirement = subFlow(new FinalityFlow(
+                    getServiceHub().signInitialTransaction(retireBuilder), Collections.emptyList()));
+            final PendingReissueSchemaV1.PendingReissue retired = new PendingReissueSchemaV1.PendingReissue(
+                    petId, toRetire.getRef(), retirement.getId());
+            getServiceHub().withEntityManager((EntityManager em) -> {
+                em.persist(retired);
+            });
+            pending = retired;
+        }
+
+        progressTracker.setCurrentStep(REISSUING);
+        final SignedTransaction retirement = getServiceHub().getValidatedTransactions().getTransaction(pending.getRetirementTxId());
+        if (retirement == null) throw new FlowException("The retirement of pet " + linearId + " is missing from storage.");
+        final StateAndRef<PetState> retired = getServiceHub().toStateAndRef(pending.getRetired());
+        final TransactionBuilder reissueBuilder = new TransactionBuilder(retired.getState().getNotary())
+                .addOutputState(retired.getState().getData().reissuedFrom(retired.getRef()), PetContract.PET_CONTRACT_ID)
+                .addCommand(new PetContract.Commands.Reissue(registry), Arrays.asList(me.getOwningKey(), registry.getOwningKey()));
+        reissueBuilder.verify(getServiceHub());
+        final SignedTransaction partSignedTx = getServiceHub().signInitialTransaction(reissueBuilder);
+
+        final FlowSession registrySession = initiateFlow(registry);
+        // The registry is shown the notarised retirement, which is how it learns the pet's history to vouch for the
+        // reissue.
+        subFlow(new SendTransactionFlow(registrySession, retirement));
+
+        progressTracker.setCurrentStep(GATHERING_SIGS);
+        final List<FlowSession> sessions = Collections.singletonList(registrySession);
+        final SignedTransaction fullySignedTx = subFlow(new CollectSignaturesFlow(
+                partSignedTx, sessions, GATHERING_SIGS.childProgressTracker()));
+
+        progressTracker.setCurrentStep(FINALISING_TRANSACTION);
+        final SecureHash reissueTxId = subFlow(new FinalityFlow(fullySignedTx, sessions, FINALISING_TRANSACTION.childProgressTracker())).getId();
+        getServiceHub().withEntityManager((EntityManager em) -> {
+            em.remove(em.find(PendingReissueSchemaV1.PendingReissue.class, petId));
+        });
+        return reissueTxId;
+    }
+}
@@ -0,0 +1,102 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.InitiatedBy;
+import net.corda.core.flows.ReceiveFinalityFlow;
+import net.corda.core.flows.ReceiveTransactionFlow;
+import net.corda.core.flows.SignTransactionFlow;
+import net.corda.core.node.StatesToRecord;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.transactions.SignedTransaction;
+import net.petchain.contracts.PetContract;
+import net.petchain.contracts.PetValidator;
+import net.petchain.states.PetState;
+
+import java.util.Collections;
+import java.util.List;
+
+// ***********************************
+// * Checkpoint pet responder flow   *
+// ***********************************
+
+/**
+ * Run by the pet registry: receives a pet's notarised retirement, then signs its reissue if the reissued pet is the retired one
+ * and has not been reissued before.
+ *
+ * The registry records each reissue as an observer, so its own vault is the record of which retired states have
+ * already been reissued.
+ */
+@InitiatedBy(CheckpointPetFlow.class)
+public class CheckpointPetFlowResponder extends FlowLogic<SignedTransaction> {
+    private final FlowSession counterpartySession;
+
+    public CheckpointPetFlowResponder(FlowSession counterpartySession) {
+        this.counterpartySession = counterpartySession;
+    }
+
+    @Suspendable
+    @Override
+    public SignedTransaction call() throws FlowException {
+        if (!getOurIdentity().getOwningKey().equals(PetContract.REGISTRY_KEY)) {
+            throw new FlowException("Only " + PetContract.REGISTRY_NAME + " with the pinned registry key reissues pets.");
+        }
+        // Version 1 initiators finalised the retirement and the reissue in one go, with no way to resume.
+        if (counterpartySession.getCounterpartyFlowInfo().getFlowVersion() < 2) {
+            throw new FlowException("Checkpointing pets requires CheckpointPetFlow version 2 or later.");
+        }
+        // Recording the retirement stores its history too, which checkTransaction resolves the retired pet from.
+        final SignedTransaction retirement = subFlow(new ReceiveTransactionFlow(counterpartySession, true, StatesToRecord.ONLY_RELEVANT));
+        if (!retirement.getTx().getCommands().get(0).getValue().equals(new PetContract.Commands.Retire())) {
+            throw new FlowException("A pet checkpoint must start with a retirement.");
+        }
+
+        class SignTxFlow extends SignTransactionFlow {
+            private SignTxFlow(FlowSession otherPartySession) {
+                super(otherPartySession);
+            }
+
+            @Override
+            protected void checkTransaction(SignedTransaction stx) throws FlowException {
+                final List<StateRef> retiredRefs = retirement.getTx().getInputs();
+                for (ContractState output : stx.getTx().getOutputStates()) {
+                    if (!(output instanceof PetState)) {
+                        throw new FlowException("A pet reissue must only produce PetStates.");
+                    }
+                    final PetState reissued = (PetState) output;
+                    final StateRef from = reissued.getReissuedFrom();
+                    if (from == null || !retiredRefs.contains(from)) {
+                        throw new FlowException("A reissued pet must point at a state retired in this checkpoint.");
+                    }
+                    final PetState retired = getServiceHub().<PetState>toStateAndRef(from).getState().getData();
+                    if (!PetValidator.samePet(retired, reissued) || !PetValidator.sameVaccination(retired, reissued)
+                            || !PetValidator.sameLicense(retired, reissued)) {
+                        throw new FlowException("A reissued pet must match the retired pet.");
+                    }
+                    if (alreadyReissued(reissued, from)) {
+                        throw new FlowException("Pet " + reissued.getLinearId() + " has already been reissued from " + from + ".");
+                    }
+                }
+            }
+        }
+
+        final SecureHash txId = subFlow(new SignTxFlow(counterpartySession)).getId();
+        return subFlow(new ReceiveFinalityFlow(counterpartySession, txId, StatesToRecord.ALL_VISIBLE));
+    }
+
+    private boolean alreadyReissued(PetState pet, StateRef from) {
+        final QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                null, Collections.singletonList(pet.getLinearId().getId()), null, Vault.StateStatus.ALL);
+        for (StateAndRef<PetState> known : getServiceHub().getVaultService().queryBy(PetState.class, criteria).getStates()) {
+            if (from.equals(known.getState().getData().getReissuedFrom())) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package com.template.flows;
+
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.VaultService;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.CriteriaExpression;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import net.petchain.schemas.PetSchemaV1;
+import net.petchain.states.PetState;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+/**
+ * Vault queries over the indexed expiry columns of {@link PetSchemaV1.PersistentPet}, for the expiry scheduler and
+ * its flows. Expiry dates are ISO-8601 strings, so their lexical order is their chronological order, and each day is
+ * one bucket of work.
+ */
+final class ExpiringPets {
+    static final String RABIES = "rabiesExpireDate";
+    static final String MUNI = "muniExpireDate";
+
+    private static final Field PET_ID = persistentPetField("petId");
+    private static final Field OWNER = persistentPetField("owner");
+
+    private static final Sort BY_PET_ID = new Sort(Collections.singleton(new Sort.SortColumn(
+            new SortAttribute.Custom(PetSchemaV1.PersistentPet.class, "petId"), Sort.Direction.ASC)));
+
+    private ExpiringPets() {
+    }
+
+    /**
+     * The next {@code size} unconsumed pets owned by {@code owner} whose {@code column} is {@code date}, after pet id
+     * {@code after} if it is not null.
+     */
+    static List<StateAndRef<PetState>> expiringOn(VaultService vault, Party owner, String column, String date, UUID after, int size) {
+        QueryCriteria criteria = owned(owner).and(custom(Builder.equal(persistentPetField(column), date)));
+        if (after != null) criteria = criteria.and(custom(Builder.greaterThan(PET_ID, after)));
+        return vault.queryBy(PetState.class, criteria, new PageSpecification(DEFAULT_PAGE_NUM, size), BY_PET_ID).getStates();
+    }
+
+    /**
+     * The earliest {@code column} date before {@code date} among the unconsumed pets owned by {@code owner}, or null.
+     */
+    static String earliestBefore(VaultService vault, Party owner, String column, String date) {
+        final Field field = persistentPetField(column);
+        final QueryCriteria criteria = owned(owner).and(custom(Builder.lessThan(field, date)));
+        final Sort byDate = new Sort(Collections.singleton(new Sort.SortColumn(
+                new SortAttribute.Custom(PetSchemaV1.PersistentPet.class, column), Sort.Direction.ASC)));
+        final List<StateAndRef<PetState>> first = vault.queryBy(PetState.class, criteria, new PageSpecification(DEFAULT_PAGE_NUM, 1), byDate).getStates();
+        if (first.isEmpty()) return null;
+        final PetState pet = first.get(0).getState().getData();
+        return column.equals(RABIES) ? pet.getRabiesExpireDate() : pet.getMuniExpireDate();
+    }
+
+    private static QueryCriteria owned(Party owner) {
+        return new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED)
+                .and(custom(Builder.equal(OWNER, owner.getName().toString())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryCriteria custom(CriteriaExpression<?, Boolean> expression) {
+        return new QueryCriteria.VaultCustomQueryCriteria(expression);
+    }
+
+    private static Field persistentPetField(String name) {
+        try {
+            return PetSchemaV1.PersistentPet.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.flows.StartableByService;
+import net.corda.core.identity.Party;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.states.PetState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// ***********************************
+// * Expiry reminder flow            *
+// ***********************************
+
+/**
+ * Sends renewal reminders for one day's bucket of expiries: logs {@link PetEvents#VACCINATION_EXPIRING} and
+ * {@link PetEvents#LICENSE_EXPIRING} events for the pets owned by this node whose records expire on
+ * {@code expireDate}, one event per {@code batchSize} pets. Nothing is written to the ledger. Usually started by
+ * {@link PetExpiryScheduler}.
+ *
+ * Returns the number of records reminded of.
+ */
+@StartableByRPC
+@StartableByService
+public class ExpiryReminderFlow extends FlowLogic<Integer> {
+    private static final ProgressTracker.Step REMINDING = new ProgressTracker.Step("Sending renewal reminders.");
+
+    private final ProgressTracker progressTracker = new ProgressTracker(REMINDING);
+
+    private final String expireDate;
+    private final int batchSize;
+
+    public ExpiryReminderFlow(String expireDate) {
+        this(expireDate, LapseExpiredPetsFlow.DEFAULT_BATCH_SIZE);
+    }
+
+    public ExpiryReminderFlow(String expireDate, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least one.");
+        this.expireDate = expireDate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public Integer call() throws FlowException {
+        progressTracker.setCurrentStep(REMINDING);
+        final String traceId = getRunId().getUuid().toString();
+        return remind(ExpiringPets.RABIES, PetEvents.VACCINATION_EXPIRING, traceId)
+                + remind(ExpiringPets.MUNI, PetEvents.LICENSE_EXPIRING, traceId);
+    }
+
+    private int remind(String column, String event, String traceId) {
+        final Party me = getOurIdentity();
+        int reminded = 0;
+        UUID after = null;
+        while (true) {
+            final List<StateAndRef<PetState>> batch = ExpiringPets.expiringOn(
+                    getServiceHub().getVaultService(), me, column, expireDate, after, batchSize);
+            if (batch.isEmpty()) return reminded;
+            final List<UniqueIdentifier> pets = new ArrayList<>(batch.size());
+            for (StateAndRef<PetState> pet : batch) pets.add(pet.getState().getData().getLinearId());
+            PetEvents.flagged(getLogger(), event, traceId, expireDate, pets);
+            reminded += pets.size();
+            if (batch.size() < batchSize) return reminded;
+            after = pets.get(pets.size() - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.TimeWindow;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FinalityFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.flows.StartableByService;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// ***********************************
+// * Lapse expired pets flow         *
+// ***********************************
+
+/**
+ * Processes one day's bucket of expiries: removes every vaccination and license that expired on {@code expireDate}
+ * from the pets owned by this node, under the Lapse command.
+ *
+ * Pets are read from the indexed expiry columns {@code batchSize} at a time, and each batch is lapsed in one
+ * transaction per notary, so a day on which thousands of records expire costs a few transactions rather than one per
+ * pet. The transactions carry a time window starting now, which is how the contract knows the records have expired.
+ * Usually started by {@link PetExpiryScheduler}.
+ *
+ * Returns the number of pets lapsed.
+ */
+@InitiatingFlow
+@StartableByRPC
+@StartableByService
+public class LapseExpiredPetsFlow extends FlowLogic<Integer> {
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    private static final ProgressTracker.Step FINDING_PETS = new ProgressTracker.Step("Finding the next batch of expired pets.");
+    private static final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating transaction for the batch.");
+    private static final ProgressTracker.Step VERIFYING_TRANSACTION = new ProgressTracker.Step("Verifying contract constraints.");
+    private static final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing transaction with our private key.");
+    private static final ProgressTracker.Step FINALISING_TRANSACTION = new ProgressTracker.Step("Notarising and recording transaction.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return FinalityFlow.Companion.tracker();
+        }
+    };
+
+    private final ProgressTracker progressTracker = new ProgressTracker(
+            FINDING_PETS,
+            GENERATING_TRANSACTION,
+            VERIFYING_TRANSACTION,
+            SIGNING_TRANSACTION,
+            FINALISING_TRANSACTION
+    );
+
+    private final String expireDate;
+    private final int batchSize;
+
+    public LapseExpiredPetsFlow(String expireDate) {
+        this(expireDate, DEFAULT_BATCH_SIZE);
+    }
+
+    public LapseExpiredPetsFlow(String expireDate, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be at least one.");
+        this.expireDate = expireDate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public Integer call() throws FlowException {
+        final PetFlowTimer timer = new PetFlowTimer(getServiceHub(), "LapseExpiredPetsFlow", getRunId().getUuid().toString());
+        try {
+            final Instant now = getServiceHub().getClock().instant();
+            if (now.isBefore(PetState.expiredAt(expireDate))) {
+                throw new FlowException("Records expiring on " + expireDate + " have not expired yet.");
+            }
+            final int lapsed = lapse(timer, ExpiringPets.RABIES, now) + lapse(timer, ExpiringPets.MUNI, now);
+            timer.done(getLogger());
+            return lapsed;
+        } catch (FlowException | RuntimeException e) {
+            timer.failed(getLogger(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Lapses the pets whose {@code column} is the bucket's date. A pet whose vaccination and license both expire that
+     * day loses both in the first pass, so the second pass does not find it again.
+     */
+    @Suspendable
+    private int lapse(PetFlowTimer timer, String column, Instant now) throws FlowException {
+        final Party me = getOurIdentity();
+        int lapsed = 0;
+        UUID after = null;
+        while (true) {
+            progressTracker.setCurrentStep(FINDING_PETS);
+            timer.step(PetFlowMetrics.FIND);
+            final List<StateAndRef<PetState>> batch = ExpiringPets.expiringOn(
+                    getServiceHub().getVaultService(), me, column, expireDate, after, batchSize);
+            if (batch.isEmpty()) return lapsed;
+
+            // The inputs of a transaction must all be notarised by the same notary.
+            final Map<Party, List<StateAndRef<PetState>>> byNotary = new LinkedHashMap<>();
+            for (StateAndRef<PetState> pet : batch) {
+                byNotary.computeIfAbsent(pet.getState().getNotary(), n -> new ArrayList<>()).add(pet);
+            }
+            for (Map.Entry<Party, List<StateAndRef<PetState>>> group : byNotary.entrySet()) {
+                record(timer, me, group.getKey(), group.getValue(), now);
+            }
+
+            lapsed += batch.size();
+            if (batch.size() < batchSize) return lapsed;
+            after = batch.get(batch.size() - 1).getState().getData().getLinearId().getId();
+        }
+    }
+
+    @Suspendable
+    private void record(PetFlowTimer timer, Party me, Party notary, List<StateAndRef<PetState>> pets, Instant now) throws FlowException {
+        final long startedAt = System.nanoTime();
+
+        progressTracker.setCurrentStep(GENERATING_TRANSACTION);
+        timer.step(PetFlowMetrics.BUILD);
+        final TransactionBuilder builder = new TransactionBuilder(notary);
+        final List<UniqueIdentifier> ids = new ArrayList<>(pets.size());
+        for (StateAndRef<PetState> pet : pets) {
+            builder.addInputState(pet);
+            builder.addOutputState(pet.getState().getData().lapsedOn(expireDate), PetContract.PET_CONTRACT_ID);
+            ids.add(pet.getState().getData().getLinearId());
+        }
+        builder.addCommand(new PetContract.Commands.Lapse(), me.getOwningKey());
+        builder.setTimeWindow(TimeWindow.fromOnly(now));
+
+        progressTracker.setCurrentStep(VERIFYING_TRANSACTION);
+        timer.step(PetFlowMetrics.VERIFY);
+        builder.verify(getServiceHub());
+
+        progressTracker.setCurrentStep(SIGNING_TRANSACTION);
+        timer.step(PetFlowMetrics.SIGN);
+        final SignedTransaction signedTx = getServiceHub().signInitialTransaction(builder);
+
+        progressTracker.setCurrentStep(FINALISING_TRANSACTION);
+        timer.step(PetFlowMetrics.RECORD);
+        final SecureHash txId = subFlow(new FinalityFlow(signedTx, Collections.emptyList(), FINALISING_TRANSACTION.childProgressTracker())).getId();
+        PetEvents.recorded(getLogger(), PetEvents.LAPSED, timer.getTraceId(), txId, ids, System.nanoTime() - startedAt);
+    }
+}
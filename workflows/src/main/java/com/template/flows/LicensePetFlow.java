@@ -0,0 +1,45 @@
+package com.template.flows;
+
+import net.corda.core.contracts.CommandData;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+// ***********************
+// * License pet flow    *
+// ***********************
+
+/**
+ * Attaches a municipal license to a pet owned by this node, replacing the one before it. The expiry date is ISO-8601.
+ *
+ * Returns the id of the recorded transaction.
+ */
+@InitiatingFlow
+@StartableByRPC
+public class LicensePetFlow extends UpdatePetFlow {
+    private final String muniLicense;
+    private final String expireDate;
+
+    public LicensePetFlow(UniqueIdentifier linearId, String muniLicense, String expireDate) {
+        super(linearId);
+        this.muniLicense = muniLicense;
+        this.expireDate = expireDate;
+    }
+
+    @Override
+    protected PetState update(PetState pet) {
+        return pet.licensed(muniLicense, expireDate);
+    }
+
+    @Override
+    protected CommandData command() {
+        return new PetContract.Commands.License();
+    }
+
+    @Override
+    protected String event() {
+        return PetEvents.LICENSED;
+    }
+}
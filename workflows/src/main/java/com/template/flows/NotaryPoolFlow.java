@@ -0,0 +1,26 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.identity.Party;
+
+import java.util.List;
+
+// ****************************
+// * Notary pool flow         *
+// ****************************
+
+/**
+ * Returns the notaries this node shards pets over, in shard order, so that clients coalescing pet submissions group
+ * them the way {@link NotarySelector} will. It reads the node's {@code notary.pool} config as well as the network map,
+ * which an RPC client cannot see.
+ */
+@StartableByRPC
+public class NotaryPoolFlow extends FlowLogic<List<Party>> {
+    @Suspendable
+    @Override
+    public List<Party> call() {
+        return NotarySelector.pool(getServiceHub());
+    }
+}
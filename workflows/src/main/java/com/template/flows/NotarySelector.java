@@ -0,0 +1,54 @@
+package com.template.flows;
+
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.node.ServiceHub;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spreads pets across the network's notaries by pet id.
+ *
+ * A pet is born under the notary this picks for its id. Every later transaction on it is notarised there too, since
+ * its inputs are. With N notaries each one sees about 1/N of the pet traffic, so the notary stops being the single
+ * point every pet transaction waits on.
+ *
+ * The pool is every notary in the network map, or the notaries named in the CorDapp config key {@code notary.pool}
+ * (X.500 names separated by semicolons). It is sorted by name so that every node shards the same way. A pet that was
+ * born before a notary joined the pool keeps its notary; only new pets are spread over the larger pool.
+ */
+public final class NotarySelector {
+    private NotarySelector() {
+    }
+
+    /**
+     * The notaries pets are spread over, in shard order.
+     */
+    public static List<Party> pool(ServiceHub serviceHub) {
+        final List<Party> notaries = new ArrayList<>(serviceHub.getNetworkMapCache().getNotaryIdentities());
+        final CordappConfig config = serviceHub.getAppContext().getConfig();
+        if (config.exists("notary.pool")) {
+            final List<Party> configured = new ArrayList<>();
+            for (String name : config.getString("notary.pool").split(";")) {
+                final Party notary = serviceHub.getNetworkMapCache().getNotary(CordaX500Name.parse(name.trim()));
+                if (notary == null) throw new IllegalStateException("notary.pool names " + name.trim() + ", which is not a notary.");
+                configured.add(notary);
+            }
+            notaries.retainAll(configured);
+        }
+        if (notaries.isEmpty()) throw new IllegalStateException("No notary is available for pets.");
+        notaries.sort(Comparator.comparing(notary -> notary.getName().toString()));
+        return notaries;
+    }
+
+    /**
+     * The shard of a pet among {@code shards}, taken from both halves of its id. Random UUIDs spread evenly.
+     */
+    public static int shard(UUID petId, int shards) {
+        return Math.floorMod(Long.hashCode(petId.getMostSignificantBits() ^ petId.getLeastSignificantBits()), shards);
+    }
+}
@@ -0,0 +1,6 @@
+package com.template.flows;
+
+/**
+ * The family of schemas for the pets a node has retired and not yet seen reissued.
+ */
+public class PendingReissueSchema { }
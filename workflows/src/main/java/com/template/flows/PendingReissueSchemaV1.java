@@ -0,0 +1,67 @@
+package com.template.flows;
+
+import net.corda.core.contracts.StateRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.schemas.MappedSchema;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * The pets this node has retired in {@link CheckpointPetFlow} and whose reissue has not been recorded yet.
+ *
+ * A checkpoint is two transactions: the retirement, then the reissue. If the reissue fails, the pet has no current
+ * state until it is reissued; this table remembers where the flow stopped, so running it again for the pet picks up
+ * at the reissue. A row is written in the same database transaction as the retirement's flow checkpoint and removed
+ * once the reissue is recorded.
+ */
+public class PendingReissueSchemaV1 extends MappedSchema {
+    public PendingReissueSchemaV1() {
+        super(PendingReissueSchema.class, 1, Collections.singletonList(PendingReissue.class));
+    }
+
+    @Override
+    public String getMigrationResource() {
+        return "pending-reissue.changelog-master";
+    }
+
+    @Entity
+    @Table(name = "pet_pending_reissues")
+    public static class PendingReissue {
+        @Id @Column(name = "pet_id", nullable = false) private UUID petId;
+        @Column(name = "retired_tx_id", nullable = false, length = 64) private String retiredTxId;
+        @Column(name = "retired_index", nullable = false) private int retiredIndex;
+        @Column(name = "retirement_tx_id", nullable = false, length = 64) private String retirementTxId;
+
+        public PendingReissue() {
+            // For Hibernate.
+        }
+
+        public PendingReissue(UUID petId, StateRef retired, SecureHash retirementTxId) {
+            this.petId = petId;
+            this.retiredTxId = retired.getTxhash().toString();
+            this.retiredIndex = retired.getIndex();
+            this.retirementTxId = retirementTxId.toString();
+        }
+
+        public UUID getPetId() { return petId; }
+
+        /**
+         * The pet's state that was retired, which its reissue must point back at.
+         */
+        public StateRef getRetired() {
+            return new StateRef(SecureHash.parse(retiredTxId), retiredIndex);
+        }
+
+        /**
+         * The transaction that retired it, which the registry is shown before it signs the reissue.
+         */
+        public SecureHash getRetirementTxId() {
+            return SecureHash.parse(retirementTxId);
+        }
+    }
+}
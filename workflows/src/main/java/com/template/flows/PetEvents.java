@@ -0,0 +1,129 @@
+package com.template.flows;
+
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import org.slf4j.Logger;
+import org.slf4j.MDC;
+
+import java.util.List;
+
+/**
+ * Structured log events for the pet flows.
+ *
+ * The fields of each event are put in the logging thread context for the one call that logs it, so a JSON layout such
+ * as the one in {@code config/prod/log4j2.xml} writes them as separate fields, and a plain pattern layout simply shows
+ * the message. Nothing is left in the context afterwards: a flow fiber can resume on a different thread, so a value
+ * left behind would be attached to another flow's events.
+ *
+ * Events are only built when the logger is enabled for their level, so a node logging at WARN pays nothing for them.
+ */
+public final class PetEvents {
+    public static final String EVENT = "event";
+    public static final String PET_ID = "petId";
+    public static final String TX_ID = "txId";
+    public static final String TRACE_ID = "traceId";
+    public static final String DURATION_MS = "durationMs";
+    public static final String STEP = "step";
+    public static final String EXPIRE_DATE = "expireDate";
+
+    /** A flow finished. {@code steps} is the per-step breakdown, e.g. {@code " build=1ms sign=3ms"}. */
+    public static final String FLOW_COMPLETED = "pet.flow.completed";
+    /** A flow failed. A failure during the verify step is a contract rejection. */
+    public static final String FLOW_FAILED = "pet.flow.failed";
+    /** A Born transaction was recorded. */
+    public static final String BORN = "pet.born";
+    /** A Transfer transaction was recorded. */
+    public static final String TRANSFERRED = "pet.transferred";
+    /** A Vaccinate transaction was recorded. */
+    public static final String VACCINATED = "pet.vaccinated";
+    /** A License transaction was recorded. */
+    public static final String LICENSED = "pet.licensed";
+    /** A Lapse transaction removing expired vaccinations and licenses was recorded. */
+    public static final String LAPSED = "pet.lapsed";
+    /** Pets' rabies vaccinations expire soon and are due for renewal. */
+    public static final String VACCINATION_EXPIRING = "pet.vaccination.expiring";
+    /** Pets' municipal licenses expire soon and are due for renewal. */
+    public static final String LICENSE_EXPIRING = "pet.license.expiring";
+
+    private PetEvents() {
+    }
+
+    public static void flowCompleted(Logger logger, String flow, String traceId, long nanos, CharSequence steps) {
+        if (!logger.isInfoEnabled()) return;
+        MDC.put(EVENT, FLOW_COMPLETED);
+        MDC.put(TRACE_ID, traceId);
+        MDC.put(DURATION_MS, Long.toString(nanos / 1_000_000));
+        try {
+            logger.info("{} trace={} took {} ms:{}", flow, traceId, nanos / 1_000_000, steps);
+        } finally {
+            MDC.remove(EVENT);
+            MDC.remove(TRACE_ID);
+            MDC.remove(DURATION_MS);
+        }
+    }
+
+    public static void flowFailed(Logger logger, String flow, String traceId, String step, Exception e) {
+        if (!logger.isWarnEnabled()) return;
+        MDC.put(EVENT, FLOW_FAILED);
+        MDC.put(TRACE_ID, traceId);
+        if (step != null) MDC.put(STEP, step);
+        try {
+            logger.warn("{} trace={} failed during {}: {}", flow, traceId, step, e.getMessage());
+        } finally {
+            MDC.remove(EVENT);
+            MDC.remove(TRACE_ID);
+            MDC.remove(STEP);
+        }
+    }
+
+    /**
+     * A transaction touching {@code pets} was recorded, {@code nanos} after the work on it started. The pet ids are
+     * comma separated, so a search for one pet id finds the batches it was part of.
+     */
+    public static void recorded(Logger logger, String event, String traceId, SecureHash txId, List<UniqueIdentifier> pets, long nanos) {
+        if (!logger.isInfoEnabled()) return;
+        MDC.put(EVENT, event);
+        MDC.put(TRACE_ID, traceId);
+        MDC.put(TX_ID, txId.toString());
+        MDC.put(PET_ID, petIds(pets));
+        MDC.put(DURATION_MS, Long.toString(nanos / 1_000_000));
+        try {
+            logger.info("{} {} pets in {} ({} ms)", event, pets.size(), txId, nanos / 1_000_000);
+        } finally {
+            MDC.remove(EVENT);
+            MDC.remove(TRACE_ID);
+            MDC.remove(TX_ID);
+            MDC.remove(PET_ID);
+            MDC.remove(DURATION_MS);
+        }
+    }
+
+    /**
+     * Records of {@code pets} that expire on {@code expireDate} were flagged for renewal.
+     */
+    public static void flagged(Logger logger, String event, String traceId, String expireDate, List<UniqueIdentifier> pets) {
+        if (!logger.isInfoEnabled()) return;
+        MDC.put(EVENT, event);
+        MDC.put(TRACE_ID, traceId);
+        MDC.put(EXPIRE_DATE, expireDate);
+        MDC.put(PET_ID, petIds(pets));
+        try {
+            logger.info("{} {} pets on {}", event, pets.size(), expireDate);
+        } finally {
+            MDC.remove(EVENT);
+            MDC.remove(TRACE_ID);
+            MDC.remove(EXPIRE_DATE);
+            MDC.remove(PET_ID);
+        }
+    }
+
+    private static String petIds(List<UniqueIdentifier> pets) {
+        if (pets.size() == 1) return pets.get(0).getId().toString();
+        final StringBuilder ids = new StringBuilder(pets.size() * 37);
+        for (UniqueIdentifier pet : pets) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(pet.getId());
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.template.flows;
+
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.identity.Party;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives vaccination and license expiry for the pets owned by this node, one day-sized bucket at a time.
+ *
+ * A per-state scheduled activity would put an entry for every licensed pet into the node's scheduler. Instead, the
+ * indexed expiry columns are the activity index: expiry dates are whole days, so each day is one bucket, and the
+ * scheduler only has to ask the vault which buckets are due. On every tick it:
+ * <ul>
+ *     <li>runs {@link LapseExpiredPetsFlow} for each day before today that still has unlapsed records, oldest
+ *     first, so buckets missed while the node was down are caught up; and</li>
+ *     <li>runs {@link ExpiryReminderFlow} for each day that has come within {@code expiry.reminderDays} since the
+ *     last tick.</li>
+ * </ul>
+ * Lapsing removes the records, so the vault itself records which buckets are done and a restart repeats nothing.
+ * Reminder progress is kept in memory, so the most recent bucket's reminders are sent again after a restart.
+ *
+ * Configured in the workflows CorDapp's config file: {@code expiry.enabled} (default true),
+ * {@code expiry.reminderDays} (30), {@code expiry.batchSize} (200) and {@code expiry.tickMinutes} (60).
+ */
+@CordaService
+public class PetExpiryScheduler extends SingletonSerializeAsToken {
+    private final static Logger logger = LoggerFactory.getLogger(PetExpiryScheduler.class);
+
+    private final AppServiceHub serviceHub;
+    private final int reminderDays;
+    private final int batchSize;
+    // Only touched on the ticker thread.
+    private LocalDate remindedThrough;
+
+    public PetExpiryScheduler(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        final CordappConfig config = serviceHub.getAppContext().getConfig();
+        this.reminderDays = config.exists("expiry.reminderDays") ? config.getInt("expiry.reminderDays") : 30;
+        this.batchSize = config.exists("expiry.batchSize") ? config.getInt("expiry.batchSize") : LapseExpiredPetsFlow.DEFAULT_BATCH_SIZE;
+        final int tickMinutes = config.exists("expiry.tickMinutes") ? config.getInt("expiry.tickMinutes") : 60;
+        if (config.exists("expiry.enabled") && !config.getBoolean("expiry.enabled")) return;
+
+        final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pet-expiry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Flows cannot be started while the node is still constructing its services, so the first tick waits.
+        ticker.scheduleWithFixedDelay(this::tick, 1, tickMinutes, TimeUnit.MINUTES);
+    }
+
+    private void tick() {
+        try {
+            final LocalDate today = serviceHub.getClock().instant().atZone(ZoneOffset.UTC).toLocalDate();
+            lapseOverdue(today);
+            remind(today.plusDays(reminderDays));
+        } catch (Exception e) {
+            logger.warn("Pet expiry tick failed; it will be retried at the next tick", e);
+        }
+    }
+
+    private void lapseOverdue(LocalDate today) throws Exception {
+        String previous = null;
+        for (String bucket = earliestOverdue(today); bucket != null; bucket = earliestOverdue(today)) {
+            if (bucket.equals(previous)) {
+                // The flow left records behind; rather than spin on the bucket, leave it to the next tick.
+                logger.warn("Expiry bucket {} still has unlapsed records", bucket);
+                return;
+            }
+            final int lapsed = serviceHub.startFlow(new LapseExpiredPetsFlow(bucket, batchSize)).getReturnValue().get();
+            logger.info("Lapsed {} pets in expiry bucket {}", lapsed, bucket);
+            previous = bucket;
+        }
+    }
+
+    private String earliestOverdue(LocalDate today) {
+        final Party me = serviceHub.getMyInfo().getLegalIdentities().get(0);
+        final String date = today.toString();
+        final String rabies = ExpiringPets.earliestBefore(serviceHub.getVaultService(), me, ExpiringPets.RABIES, date);
+        final String muni = ExpiringPets.earliestBefore(serviceHub.getVaultService(), me, ExpiringPets.MUNI, date);
+        if (rabies == null) return muni;
+        if (muni == null) return rabies;
+        return rabies.compareTo(muni) <= 0 ? rabies : muni;
+    }
+
+    private void remind(LocalDate through) throws Exception {
+        LocalDate bucket = remindedThrough == null ? through : remindedThrough.plusDays(1);
+        for (; !bucket.isAfter(through); bucket = bucket.plusDays(1)) {
+            final int reminded = serviceHub.startFlow(new ExpiryReminderFlow(bucket.toString(), batchSize)).getReturnValue().get();
+            if (reminded > 0) logger.info("Sent {} renewal reminders for expiry bucket {}", reminded, bucket);
+            remindedThrough = bucket;
+        }
+    }
+}
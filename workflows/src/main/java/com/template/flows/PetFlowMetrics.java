@@ -0,0 +1,100 @@
+package com.template.flows;
+
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-step timers and counters for the pet flows, kept for the lifetime of the node.
+ *
+ * Flows record into it through a {@link PetFlowTimer}. The numbers are published as the JMX bean
+ * {@code net.petchain:type=PetFlowMetrics,node=<node name>} and returned over RPC by {@link PetFlowMetricsFlow}, which
+ * the webserver renders in Prometheus format. Recording only touches striped adders, so flows running on many fibers
+ * at once do not contend on it.
+ */
+@CordaService
+public class PetFlowMetrics extends SingletonSerializeAsToken implements PetFlowMetricsMXBean {
+    private final static Logger logger = LoggerFactory.getLogger(PetFlowMetrics.class);
+
+    public static final String FLOW = "flow";
+    public static final String FIND = "find";
+    public static final String BUILD = "build";
+    public static final String VERIFY = "verify";
+    public static final String SIGN = "sign";
+    public static final String COLLECT = "collect";
+    public static final String NOTARISE = "notarise";
+    public static final String RECORD = "record";
+
+    private static final class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+    }
+
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    public PetFlowMetrics(AppServiceHub serviceHub) {
+        String node = serviceHub.getMyInfo().getLegalIdentities().get(0).getName().toString();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("net.petchain:type=PetFlowMetrics,node=" + ObjectName.quote(node));
+            try {
+                server.registerMBean(this, name);
+            } catch (InstanceAlreadyExistsException e) {
+                // A node restarted in the same JVM, as in tests, takes over its predecessor's name.
+                server.unregisterMBean(name);
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not register pet flow metrics with JMX", e);
+        }
+    }
+
+    void record(String flow, String step, long nanos) {
+        Timer timer = timer(flow, step);
+        timer.count.increment();
+        timer.totalNanos.add(nanos);
+        timer.maxNanos.accumulate(nanos);
+    }
+
+    void failed(String flow, String step) {
+        timer(flow, step).failures.increment();
+    }
+
+    private Timer timer(String flow, String step) {
+        return timers.computeIfAbsent(flow, f -> new ConcurrentHashMap<>()).computeIfAbsent(step, s -> new Timer());
+    }
+
+    @Override
+    public List<StepTiming> getStepTimings() {
+        List<StepTiming> snapshot = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Timer>> flow : timers.entrySet()) {
+            for (Map.Entry<String, Timer> step : flow.getValue().entrySet()) {
+                Timer timer = step.getValue();
+                snapshot.add(new StepTiming(flow.getKey(), step.getKey(), timer.count.sum(), timer.failures.sum(),
+                        timer.totalNanos.sum(), timer.maxNanos.get()));
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void reset() {
+        timers.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.StartableByRPC;
+
+import java.util.List;
+
+// ****************************
+// * Pet flow metrics flow    *
+// ****************************
+
+/**
+ * Returns a snapshot of this node's {@link PetFlowMetrics}, for scraping over RPC.
+ */
+@StartableByRPC
+public class PetFlowMetricsFlow extends FlowLogic<List<StepTiming>> {
+    @Suspendable
+    @Override
+    public List<StepTiming> call() {
+        return getServiceHub().cordaService(PetFlowMetrics.class).getStepTimings();
+    }
+}
@@ -0,0 +1,12 @@
+package com.template.flows;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link PetFlowMetrics}.
+ */
+public interface PetFlowMetricsMXBean {
+    List<StepTiming> getStepTimings();
+
+    void reset();
+}
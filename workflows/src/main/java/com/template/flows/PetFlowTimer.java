@@ -0,0 +1,66 @@
+package com.template.flows;
+
+import net.corda.core.node.ServiceHub;
+import org.slf4j.Logger;
+
+/**
+ * Times the steps of one run of a pet flow into {@link PetFlowMetrics}.
+ *
+ * Each call to {@link #step} closes the step before it. {@link #done} closes the last step and records the whole flow;
+ * {@link #failed} counts a failure against the step that was running. The timer is part of the flow's checkpoint, so it
+ * only holds the service's serialization token and plain values. Step times are wall-clock and include any time the
+ * flow spends suspended, which is where a slow counterparty or notary shows up. The outcome is logged as a
+ * {@link PetEvents} event.
+ */
+public class PetFlowTimer {
+    private final PetFlowMetrics metrics;
+    private final String flow;
+    private final String traceId;
+    private final long startedAt;
+    private final StringBuilder summary = new StringBuilder();
+    private String step;
+    private long stepStartedAt;
+
+    PetFlowTimer(ServiceHub serviceHub, String flow, String traceId) {
+        this.metrics = serviceHub.cordaService(PetFlowMetrics.class);
+        this.flow = flow;
+        this.traceId = traceId;
+        this.startedAt = System.nanoTime();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    void step(String next) {
+        long now = System.nanoTime();
+        close(now);
+        step = next;
+        stepStartedAt = now;
+    }
+
+    void done(Logger logger) {
+        long now = System.nanoTime();
+        close(now);
+        step = null;
+        metrics.record(flow, PetFlowMetrics.FLOW, now - startedAt);
+        PetEvents.flowCompleted(logger, flow, traceId, now - startedAt, summary);
+    }
+
+    void failed(Logger logger, Exception e) {
+        if (step != null) metrics.failed(flow, step);
+        metrics.failed(flow, PetFlowMetrics.FLOW);
+        PetEvents.flowFailed(logger, flow, traceId, step, e);
+    }
+
+    private void close(long now) {
+        if (step == null) return;
+        long nanos = now - stepStartedAt;
+        metrics.record(flow, step, nanos);
+        summary.append(' ').append(step).append('=').append(nanos / 1_000_000).append("ms");
+    }
+}
@@ -0,0 +1,179 @@
+package com.template.flows;
+
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.Party;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs this node's pet transfers in parallel without letting them contend for the same pets.
+ *
+ * Two transfer flows that pick up the same pet both find its current state and build on it, and all but one of
+ * them fail when the notary sees the double spend. Under load that turns into retry storms. Instead, every pending
+ * transfer is put into one of {@code transfers.partitions} lanes by pet id, and each lane runs one
+ * {@link TransferPetFlow} at a time, in submission order. Lanes run in parallel, so the node keeps up to that many
+ * transfers in flight, while any one pet only ever has one, and its transfers run in the order they were submitted.
+ *
+ * When a lane's flow finishes, the transfers queued behind it to the same new owner are coalesced into the next flow,
+ * up to {@code transfers.maxBatch} pets, so a busy lane costs one signature round with the new owner per batch rather
+ * than per pet. A batch stops at the first transfer to another owner, or of a pet already in it, to keep the order. If
+ * a coalesced flow fails, its pets are retried one flow each at the front of the lane, so one bad transfer cannot fail
+ * its neighbours.
+ *
+ * Lanes use the same hash as {@link NotarySelector}, so with a number of partitions that is a multiple of the number
+ * of notaries, every pet in a lane shares a notary and a batch never spans two.
+ *
+ * Pending transfers are held in memory and are lost if the node stops. Configured in the workflows CorDapp's config
+ * file: {@code transfers.partitions} (default 8) and {@code transfers.maxBatch} (50).
+ */
+@CordaService
+public class PetTransferScheduler extends SingletonSerializeAsToken {
+    private final static Logger logger = LoggerFactory.getLogger(PetTransferScheduler.class);
+
+    private static final class PendingTransfer {
+        final UniqueIdentifier petId;
+        final Party newOwner;
+        final CompletableFuture<SecureHash> result = new CompletableFuture<>();
+        // Set on the pets of a failed batch, which are retried one flow each.
+        boolean alone;
+
+        PendingTransfer(UniqueIdentifier petId, Party newOwner) {
+            this.petId = petId;
+            this.newOwner = newOwner;
+        }
+    }
+
+    /**
+     * The transfers of one partition, oldest first, and whether a flow of the lane is running. Guarded by the lane.
+     */
+    private static final class Lane {
+        final ArrayDeque<PendingTransfer> pending = new ArrayDeque<>();
+        boolean running;
+    }
+
+    private final AppServiceHub serviceHub;
+    private final int maxBatch;
+    private final Lane[] lanes;
+    // Starts flows and handles their results, so no RPC or flow thread waits on the scheduler.
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pet-transfer-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PetTransferScheduler(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        final CordappConfig config = serviceHub.getAppContext().getConfig();
+        final int partitions = config.exists("transfers.partitions") ? config.getInt("transfers.partitions") : 8;
+        this.maxBatch = config.exists("transfers.maxBatch") ? config.getInt("transfers.maxBatch") : 50;
+        if (partitions < 1) throw new IllegalArgumentException("transfers.partitions must be at least one.");
+        if (maxBatch < 1) throw new IllegalArgumentException("transfers.maxBatch must be at least one.");
+        this.lanes = new Lane[partitions];
+        for (int i = 0; i < partitions; i++) lanes[i] = new Lane();
+    }
+
+    /**
+     * Queues the transfer of a pet owned by this node to {@code newOwner}. The future completes with the id of the
+     * transaction that moved the pet, or fails with the reason it was not moved.
+     */
+    public CompletableFuture<SecureHash> transfer(UniqueIdentifier petId, Party newOwner) {
+        final PendingTransfer transfer = new PendingTransfer(petId, newOwner);
+        final Lane lane = lanes[NotarySelector.shard(petId.getId(), lanes.length)];
+        synchronized (lane) {
+            lane.pending.addLast(transfer);
+            if (lane.running) return transfer.result;
+            lane.running = true;
+        }
+        starter.execute(() -> next(lane));
+        return transfer.result;
+    }
+
+    /**
+     * The number of transfers queued and not yet started.
+     */
+    public int pending() {
+        int pending = 0;
+        for (Lane lane : lanes) {
+            synchronized (lane) {
+                pending += lane.pending.size();
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Starts the lane's next batch, or marks the lane idle if it has none. Runs on the starter thread.
+     */
+    private void next(Lane lane) {
+        final List<PendingTransfer> batch = new ArrayList<>();
+        synchronized (lane) {
+            final Set<UniqueIdentifier> pets = new HashSet<>();
+            PendingTransfer head;
+            while (batch.size() < maxBatch && (head = lane.pending.peekFirst()) != null) {
+                final boolean fits = batch.isEmpty()
+                        || (!head.alone && !batch.get(0).alone && head.newOwner.equals(batch.get(0).newOwner) && !pets.contains(head.petId));
+                if (!fits) break;
+                batch.add(lane.pending.pollFirst());
+                pets.add(head.petId);
+            }
+            if (batch.isEmpty()) {
+                lane.running = false;
+                return;
+            }
+        }
+
+        final List<UniqueIdentifier> petIds = new ArrayList<>(batch.size());
+        for (PendingTransfer transfer : batch) petIds.add(transfer.petId);
+        final CordaFuture<SecureHash> flow;
+        try {
+            flow = serviceHub.startFlow(new TransferPetFlow(petIds, batch.get(0).newOwner)).getReturnValue();
+        } catch (RuntimeException e) {
+            starter.execute(() -> finished(lane, batch, null, e));
+            return;
+        }
+        flow.then(result -> {
+            // Flow results arrive on a node thread, which must not be held up starting the next flow.
+            starter.execute(() -> {
+                try {
+                    finished(lane, batch, result.get(), null);
+                } catch (Exception e) {
+                    finished(lane, batch, null, e.getCause() == null ? e : e.getCause());
+                }
+            });
+            return null;
+        });
+    }
+
+    private void finished(Lane lane, List<PendingTransfer> batch, SecureHash txId, Throwable failure) {
+        if (failure == null) {
+            for (PendingTransfer transfer : batch) transfer.result.complete(txId);
+        } else if (batch.size() > 1) {
+            logger.warn("Transfer of {} pets to {} failed; retrying them one at a time", batch.size(), batch.get(0).newOwner, failure);
+            synchronized (lane) {
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    batch.get(i).alone = true;
+                    lane.pending.addFirst(batch.get(i));
+                }
+            }
+        } else {
+            logger.warn("Transfer of pet {} to {} failed", batch.get(0).petId, batch.get(0).newOwner, failure);
+            batch.get(0).result.completeExceptionally(failure);
+        }
+        next(lane);
+    }
+}
@@ -0,0 +1,62 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.identity.Party;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.states.PetState;
+
+import java.util.Collections;
+
+// ***********************
+// * Register pet flow   *
+// ***********************
+
+/**
+ * Records the birth of a single pet bred by this node. The node is both breeder and first owner.
+ *
+ * Returns the pet's linear id, which identifies the pet in every later transfer.
+ */
+@InitiatingFlow
+@StartableByRPC
+public class RegisterPetFlow extends FlowLogic<UniqueIdentifier> {
+    private static final ProgressTracker.Step RECORDING_BIRTH = new ProgressTracker.Step("Recording the pet's birth.");
+
+    private final ProgressTracker progressTracker = new ProgressTracker(RECORDING_BIRTH);
+
+    private final String petName;
+    private final String species;
+    private final String breed;
+    private final String sex;
+    private final String color;
+    private final String birthDate;
+
+    public RegisterPetFlow(String petName, String species, String breed, String sex, String color, String birthDate) {
+        this.petName = petName;
+        this.species = species;
+        this.breed = breed;
+        this.sex = sex;
+        this.color = color;
+        this.birthDate = birthDate;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public UniqueIdentifier call() throws FlowException {
+        final Party me = getOurIdentity();
+        final PetState pet = new PetState(me, petName, species, breed, sex, color, birthDate, me);
+
+        progressTracker.setCurrentStep(RECORDING_BIRTH);
+        subFlow(new BatchBirthFlow(Collections.singletonList(pet), 1));
+        return pet.getLinearId();
+    }
+}
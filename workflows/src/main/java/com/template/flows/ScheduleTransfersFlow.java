@@ -0,0 +1,45 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.identity.Party;
+import net.petchain.contracts.PetValidator;
+
+import java.util.List;
+
+// ****************************
+// * Schedule transfers flow  *
+// ****************************
+
+/**
+ * Queues the transfer of pets owned by this node to a new owner on the node's {@link PetTransferScheduler}, and
+ * returns without waiting for them. Clients that start many transfers at once use this instead of one
+ * {@link TransferPetFlow} each, and follow the pets' new states in the vault.
+ *
+ * Returns the number of transfers queued on the node and not yet started, including these, so callers can pace
+ * themselves.
+ */
+@StartableByRPC
+public class ScheduleTransfersFlow extends FlowLogic<Integer> {
+    private final List<UniqueIdentifier> linearIds;
+    private final Party newOwner;
+
+    public ScheduleTransfersFlow(List<UniqueIdentifier> linearIds, Party newOwner) {
+        if (linearIds.isEmpty()) throw new IllegalArgumentException("At least one pet must be transferred.");
+        this.linearIds = linearIds;
+        this.newOwner = newOwner;
+    }
+
+    @Suspendable
+    @Override
+    public Integer call() throws FlowException {
+        final String violation = PetValidator.newOwnerViolation(getOurIdentity(), newOwner);
+        if (violation != null) throw new FlowException(violation);
+        final PetTransferScheduler scheduler = getServiceHub().cordaService(PetTransferScheduler.class);
+        for (UniqueIdentifier linearId : linearIds) scheduler.transfer(linearId, newOwner);
+        return scheduler.pending();
+    }
+}
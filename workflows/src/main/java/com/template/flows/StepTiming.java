@@ -0,0 +1,54 @@
+package com.template.flows;
+
+import net.corda.core.serialization.CordaSerializable;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Accumulated timings of one step of one pet flow. The step {@link PetFlowMetrics#FLOW} covers the whole flow.
+ */
+@CordaSerializable
+public class StepTiming {
+    private final String flow;
+    private final String step;
+    private final long count;
+    private final long failures;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"flow", "step", "count", "failures", "totalNanos", "maxNanos"})
+    public StepTiming(String flow, String step, long count, long failures, long totalNanos, long maxNanos) {
+        this.flow = flow;
+        this.step = step;
+        this.count = count;
+        this.failures = failures;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    public String getStep() {
+        return step;
+    }
+
+    // How many times the step completed.
+    public long getCount() {
+        return count;
+    }
+
+    // How many times the flow failed during the step.
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+}
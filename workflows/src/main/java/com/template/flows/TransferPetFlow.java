@@ -0,0 +1,193 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.crypto.TransactionSignature;
+import net.corda.core.flows.CollectSignaturesFlow;
+import net.corda.core.flows.FinalityFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.NotaryFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.corda.core.flows.StartableByService;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.DEFAULT_PAGE_NUM;
+
+// ***********************
+// * Transfer pet flow   *
+// ***********************
+
+/**
+ * Transfers one pet, or a whole group of pets (a kennel or shelter sale), owned by this node to a new owner. A group
+ * moves atomically in a single transaction, so it costs one signature round and one notarisation regardless of size.
+ *
+ * The current owner runs this flow, so its own signature is applied locally before any message is sent. That leaves
+ * the new owner's signature as the only counterparty round-trip before notarisation, and the same session is reused
+ * to distribute the notarised transaction. The new owner resolves the pet's history once, while signing, so
+ * {@link TransferPetFlowResponder} does not fetch it again when recording.
+ *
+ * Each step is timed into {@link PetFlowMetrics}. From version 2 the flow's run id is sent to the new owner as a trace
+ * id, so both sides of one transfer can be matched in the logs.
+ *
+ * Many concurrent transfers are best queued through {@link PetTransferScheduler}, which keeps them off each other's
+ * pets.
+ *
+ * Returns the id of the recorded transaction.
+ */
+@InitiatingFlow(version = 2)
+@StartableByRPC
+@StartableByService
+public class TransferPetFlow extends FlowLogic<SecureHash> {
+    private static final ProgressTracker.Step FINDING_PETS = new ProgressTracker.Step("Finding the pets' current states in the vault.");
+    private static final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating transaction based on the new owner.");
+    private static final ProgressTracker.Step VERIFYING_TRANSACTION = new ProgressTracker.Step("Verifying contract constraints.");
+    private static final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing transaction with our private key.");
+    private static final ProgressTracker.Step GATHERING_SIGS = new ProgressTracker.Step("Gathering the new owner's signature.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return CollectSignaturesFlow.Companion.tracker();
+        }
+    };
+    private static final ProgressTracker.Step NOTARISING_TRANSACTION = new ProgressTracker.Step("Obtaining notary signature.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return NotaryFlow.Client.Companion.tracker();
+        }
+    };
+    private static final ProgressTracker.Step FINALISING_TRANSACTION = new ProgressTracker.Step("Recording and distributing transaction.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return FinalityFlow.Companion.tracker();
+        }
+    };
+
+    private final ProgressTracker progressTracker = new ProgressTracker(
+            FINDING_PETS,
+            GENERATING_TRANSACTION,
+            VERIFYING_TRANSACTION,
+            SIGNING_TRANSACTION,
+            GATHERING_SIGS,
+            NOTARISING_TRANSACTION,
+            FINALISING_TRANSACTION
+    );
+
+    private final List<UniqueIdentifier> linearIds;
+    private final Party newOwner;
+
+    public TransferPetFlow(UniqueIdentifier linearId, Party newOwner) {
+        this(Collections.singletonList(linearId), newOwner);
+    }
+
+    public TransferPetFlow(List<UniqueIdentifier> linearIds, Party newOwner) {
+        if (linearIds.isEmpty()) throw new IllegalArgumentException("At least one pet must be transferred.");
+        this.linearIds = linearIds;
+        this.newOwner = newOwner;
+    }
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public SecureHash call() throws FlowException {
+        final PetFlowTimer timer = new PetFlowTimer(getServiceHub(), "TransferPetFlow", getRunId().getUuid().toString());
+        try {
+            final SecureHash txId = transfer(timer);
+            timer.done(getLogger());
+            return txId;
+        } catch (FlowException | RuntimeException e) {
+            timer.failed(getLogger(), e);
+            throw e;
+        }
+    }
+
+    @Suspendable
+    private SecureHash transfer(PetFlowTimer timer) throws FlowException {
+        final Party me = getOurIdentity();
+
+        progressTracker.setCurrentStep(FINDING_PETS);
+        timer.step(PetFlowMetrics.FIND);
+        final List<UUID> ids = new ArrayList<>(linearIds.size());
+        for (UniqueIdentifier linearId : linearIds) ids.add(linearId.getId());
+        final QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(null, ids, null, Vault.StateStatus.UNCONSUMED);
+        final List<StateAndRef<PetState>> inputs = getServiceHub().getVaultService()
+                .queryBy(PetState.class, criteria, new PageSpecification(DEFAULT_PAGE_NUM, ids.size()))
+                .getStates();
+        if (inputs.size() != new HashSet<>(ids).size()) {
+            throw new FlowException("Found current states for only " + inputs.size() + " of " + ids.size() + " pets.");
+        }
+        final Party notary = inputs.get(0).getState().getNotary();
+        for (StateAndRef<PetState> input : inputs) {
+            if (!input.getState().getData().getOwner().equals(me)) {
+                throw new FlowException("Only the current owner can transfer pet " + input.getState().getData().getLinearId() + ".");
+            }
+            if (!input.getState().getNotary().equals(notary)) {
+                throw new FlowException("Pets notarised by different notaries cannot be transferred in one transaction.");
+            }
+        }
+
+        progressTracker.setCurrentStep(GENERATING_TRANSACTION);
+        timer.step(PetFlowMetrics.BUILD);
+        // A pet stays with the notary it was born under, so the transfer is notarised by the inputs' notary. Each
+        // output is added at the same position as the input it replaces, which is how the contract pairs them.
+        final TransactionBuilder builder = new TransactionBuilder(notary);
+        for (StateAndRef<PetState> input : inputs) {
+            builder.addInputState(input);
+            builder.addOutputState(input.getState().getData().withNewOwner(newOwner), PetContract.PET_CONTRACT_ID);
+        }
+        builder.addCommand(new PetContract.Commands.Transfer(), Arrays.asList(me.getOwningKey(), newOwner.getOwningKey()));
+
+        progressTracker.setCurrentStep(VERIFYING_TRANSACTION);
+        timer.step(PetFlowMetrics.VERIFY);
+        builder.verify(getServiceHub());
+
+        progressTracker.setCurrentStep(SIGNING_TRANSACTION);
+        timer.step(PetFlowMetrics.SIGN);
+        final SignedTransaction partSignedTx = getServiceHub().signInitialTransaction(builder);
+
+        progressTracker.setCurrentStep(GATHERING_SIGS);
+        timer.step(PetFlowMetrics.COLLECT);
+        final FlowSession newOwnerSession = initiateFlow(newOwner);
+        // The new owner logs and times its side of the transfer under the same trace id.
+        newOwnerSession.send(timer.getTraceId());
+        final List<FlowSession> sessions = Collections.singletonList(newOwnerSession);
+        final SignedTransaction fullySignedTx = subFlow(new CollectSignaturesFlow(
+                partSignedTx, sessions, GATHERING_SIGS.childProgressTracker()));
+
+        // Notarising before finality lets the notary round-trip be timed apart from recording and distribution;
+        // FinalityFlow sees the notary's signature and does not ask again.
+        progressTracker.setCurrentStep(NOTARISING_TRANSACTION);
+        timer.step(PetFlowMetrics.NOTARISE);
+        final List<TransactionSignature> notarySignatures = subFlow(new NotaryFlow.Client(
+                fullySignedTx, NOTARISING_TRANSACTION.childProgressTracker()));
+        final SignedTransaction notarisedTx = fullySignedTx.withAdditionalSignatures(notarySignatures);
+
+        progressTracker.setCurrentStep(FINALISING_TRANSACTION);
+        timer.step(PetFlowMetrics.RECORD);
+        final SecureHash txId = subFlow(new FinalityFlow(notarisedTx, sessions, FINALISING_TRANSACTION.childProgressTracker())).getId();
+        PetEvents.recorded(getLogger(), PetEvents.TRANSFERRED, timer.getTraceId(), txId, linearIds, timer.elapsedNanos());
+        return txId;
+    }
+}
@@ -0,0 +1,93 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.Command;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.InitiatedBy;
+import net.corda.core.flows.ReceiveFinalityFlow;
+import net.corda.core.flows.SignTransactionFlow;
+import net.corda.core.transactions.SignedTransaction;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+// *********************************
+// * Transfer pet responder flow   *
+// *********************************
+
+/**
+ * Run by the new owner: signs a transfer of a pet to this node and records the notarised transaction.
+ */
+@InitiatedBy(TransferPetFlow.class)
+public class TransferPetFlowResponder extends FlowLogic<SignedTransaction> {
+    private final FlowSession counterpartySession;
+
+    public TransferPetFlowResponder(FlowSession counterpartySession) {
+        this.counterpartySession = counterpartySession;
+    }
+
+    @Suspendable
+    @Override
+    public SignedTransaction call() throws FlowException {
+        // Version 1 initiators do not send a trace id, so this side starts its own.
+        final String traceId = counterpartySession.getCounterpartyFlowInfo().getFlowVersion() >= 2
+                ? counterpartySession.receive(String.class).unwrap(id -> id)
+                : getRunId().getUuid().toString();
+        final PetFlowTimer timer = new PetFlowTimer(getServiceHub(), "TransferPetFlowResponder", traceId);
+        try {
+            final SignedTransaction recorded = signAndRecord(timer);
+            timer.done(getLogger());
+            return recorded;
+        } catch (FlowException | RuntimeException e) {
+            timer.failed(getLogger(), e);
+            throw e;
+        }
+    }
+
+    @Suspendable
+    private SignedTransaction signAndRecord(PetFlowTimer timer) throws FlowException {
+        class SignTxFlow extends SignTransactionFlow {
+            private SignTxFlow(FlowSession otherPartySession) {
+                super(otherPartySession);
+            }
+
+            @Override
+            protected void checkTransaction(SignedTransaction stx) throws FlowException {
+                // The initiator can send any transaction under this flow's name, so it is checked to be a transfer to
+                // us of pets we do not already own. Otherwise a retirement, record change or lapse of our own pets
+                // would pass, since we stay the owner of every output.
+                int transfers = 0;
+                for (Command<?> command : stx.getTx().getCommands()) {
+                    if (command.getValue() instanceof PetContract.Commands.Transfer) transfers++;
+                }
+                if (transfers != 1) throw new FlowException("A pet transfer must have exactly one Transfer command.");
+                if (stx.getTx().getOutputStates().isEmpty()) throw new FlowException("A pet transfer must produce at least one pet.");
+                for (ContractState output : stx.getTx().getOutputStates()) {
+                    if (!(output instanceof PetState)) {
+                        throw new FlowException("A pet transfer must only produce PetStates.");
+                    }
+                    if (!((PetState) output).getOwner().equals(getOurIdentity())) {
+                        throw new FlowException("A pet transfer sent to us must make us the new owner.");
+                    }
+                }
+                // The inputs were resolved before this check, so they can be read from our storage.
+                for (StateRef ref : stx.getTx().getInputs()) {
+                    final ContractState input = getServiceHub().toStateAndRef(ref).getState().getData();
+                    if (input instanceof PetState && ((PetState) input).getOwner().equals(getOurIdentity())) {
+                        throw new FlowException("A pet transfer sent to us must not spend a pet we already own.");
+                    }
+                }
+            }
+        }
+
+        // Signing includes resolving and verifying the pets' history.
+        timer.step(PetFlowMetrics.SIGN);
+        final SecureHash txId = subFlow(new SignTxFlow(counterpartySession)).getId();
+        timer.step(PetFlowMetrics.RECORD);
+        return subFlow(new ReceiveFinalityFlow(counterpartySession, txId));
+    }
+}
@@ -0,0 +1,118 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.CommandData;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FinalityFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replaces the current state of one pet owned by this node with an updated state, under a command only the owner
+ * signs. The owner is the pet's only participant, so after notarisation there is no one to distribute to.
+ *
+ * Subclasses say how the pet changes and under which command.
+ */
+public abstract class UpdatePetFlow extends FlowLogic<SecureHash> {
+    private static final ProgressTracker.Step FINDING_PET = new ProgressTracker.Step("Finding the pet's current state in the vault.");
+    private static final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating transaction.");
+    private static final ProgressTracker.Step VERIFYING_TRANSACTION = new ProgressTracker.Step("Verifying contract constraints.");
+    private static final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing transaction with our private key.");
+    private static final ProgressTracker.Step FINALISING_TRANSACTION = new ProgressTracker.Step("Notarising and recording transaction.") {
+        @Override
+        public ProgressTracker childProgressTracker() {
+            return FinalityFlow.Companion.tracker();
+        }
+    };
+
+    private final ProgressTracker progressTracker = new ProgressTracker(
+            FINDING_PET,
+            GENERATING_TRANSACTION,
+            VERIFYING_TRANSACTION,
+            SIGNING_TRANSACTION,
+            FINALISING_TRANSACTION
+    );
+
+    private final UniqueIdentifier linearId;
+
+    protected UpdatePetFlow(UniqueIdentifier linearId) {
+        this.linearId = linearId;
+    }
+
+    /** The pet's next state. */
+    protected abstract PetState update(PetState pet);
+
+    protected abstract CommandData command();
+
+    /** The {@link PetEvents} event logged once the update is recorded. */
+    protected abstract String event();
+
+    @Override
+    public ProgressTracker getProgressTracker() {
+        return progressTracker;
+    }
+
+    @Suspendable
+    @Override
+    public SecureHash call() throws FlowException {
+        final PetFlowTimer timer = new PetFlowTimer(getServiceHub(), getClass().getSimpleName(), getRunId().getUuid().toString());
+        try {
+            final SecureHash txId = record(timer);
+            timer.done(getLogger());
+            return txId;
+        } catch (FlowException | RuntimeException e) {
+            timer.failed(getLogger(), e);
+            throw e;
+        }
+    }
+
+    @Suspendable
+    private SecureHash record(PetFlowTimer timer) throws FlowException {
+        final Party me = getOurIdentity();
+
+        progressTracker.setCurrentStep(FINDING_PET);
+        timer.step(PetFlowMetrics.FIND);
+        final QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                null, Collections.singletonList(linearId.getId()), null, Vault.StateStatus.UNCONSUMED);
+        final List<StateAndRef<PetState>> found = getServiceHub().getVaultService().queryBy(PetState.class, criteria).getStates();
+        if (found.isEmpty()) throw new FlowException("No current state found for pet " + linearId + ".");
+        final StateAndRef<PetState> input = found.get(0);
+        if (!input.getState().getData().getOwner().equals(me)) {
+            throw new FlowException("Only the current owner can update pet " + linearId + ".");
+        }
+
+        progressTracker.setCurrentStep(GENERATING_TRANSACTION);
+        timer.step(PetFlowMetrics.BUILD);
+        final TransactionBuilder builder = new TransactionBuilder(input.getState().getNotary());
+        builder.addInputState(input);
+        builder.addOutputState(update(input.getState().getData()), PetContract.PET_CONTRACT_ID);
+        builder.addCommand(command(), me.getOwningKey());
+
+        progressTracker.setCurrentStep(VERIFYING_TRANSACTION);
+        timer.step(PetFlowMetrics.VERIFY);
+        builder.verify(getServiceHub());
+
+        progressTracker.setCurrentStep(SIGNING_TRANSACTION);
+        timer.step(PetFlowMetrics.SIGN);
+        final SignedTransaction signedTx = getServiceHub().signInitialTransaction(builder);
+
+        progressTracker.setCurrentStep(FINALISING_TRANSACTION);
+        timer.step(PetFlowMetrics.RECORD);
+        final SecureHash txId = subFlow(new FinalityFlow(signedTx, Collections.emptyList(), FINALISING_TRANSACTION.childProgressTracker())).getId();
+        PetEvents.recorded(getLogger(), event(), timer.getTraceId(), txId, Collections.singletonList(linearId), timer.elapsedNanos());
+        return txId;
+    }
+}
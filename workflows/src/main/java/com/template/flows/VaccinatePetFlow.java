@@ -0,0 +1,47 @@
+package com.template.flows;
+
+import net.corda.core.contracts.CommandData;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.flows.InitiatingFlow;
+import net.corda.core.flows.StartableByRPC;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+
+// ***********************
+// * Vaccinate pet flow  *
+// ***********************
+
+/**
+ * Attaches a rabies vaccination to a pet owned by this node, replacing the one before it. Dates are ISO-8601.
+ *
+ * Returns the id of the recorded transaction.
+ */
+@InitiatingFlow
+@StartableByRPC
+public class VaccinatePetFlow extends UpdatePetFlow {
+    private final String rabiesLicense;
+    private final String issueDate;
+    private final String expireDate;
+
+    public VaccinatePetFlow(UniqueIdentifier linearId, String rabiesLicense, String issueDate, String expireDate) {
+        super(linearId);
+        this.rabiesLicense = rabiesLicense;
+        this.issueDate = issueDate;
+        this.expireDate = expireDate;
+    }
+
+    @Override
+    protected PetState update(PetState pet) {
+        return pet.vaccinated(rabiesLicense, issueDate, expireDate);
+    }
+
+    @Override
+    protected CommandData command() {
+        return new PetContract.Commands.Vaccinate();
+    }
+
+    @Override
+    protected String event() {
+        return PetEvents.VACCINATED;
+    }
+}
@@ -0,0 +1,152 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.template.flows.CheckpointPetFlow;
+import com.template.flows.RegisterPetFlow;
+import com.template.flows.TransferPetFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.MockNodeParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * A new owner resolves every transaction behind the pet it buys. These tests measure how that grows with the number
+ * of earlier transfers, and check that a registry checkpoint cuts it back to the reissue.
+ */
+public class BackChainTests {
+    private static final Logger logger = LoggerFactory.getLogger(BackChainTests.class);
+
+    private final MockNetwork network = new MockNetwork(new MockNetworkParameters(ImmutableList.of(
+        TestCordapp.findCordapp("net.petchain.contracts"),
+        TestCordapp.findCordapp("com.template.flows")
+    )));
+    private final StartedMockNode a = network.createNode();
+    private final StartedMockNode b = network.createNode();
+    // Mock nodes derive their first key from the entropy root plus one, so the registry holds the development key
+    // pinned in the contracts CorDapp.
+    private final StartedMockNode registry = network.createNode(new MockNodeParameters()
+            .withLegalName(PetContract.REGISTRY_NAME)
+            .withEntropyRoot(BigInteger.valueOf(20190)));
+
+    @Before
+    public void setup() {
+        network.runNetwork();
+        assertEquals(PetContract.REGISTRY_KEY, party(registry).getOwningKey());
+    }
+
+    @After
+    public void tearDown() {
+        network.stopNodes();
+    }
+
+    private static Party party(StartedMockNode node) {
+        return node.getInfo().getLegalIdentities().get(0);
+    }
+
+    private <T> T run(StartedMockNode node, FlowLogic<T> flow) throws ExecutionException, InterruptedException {
+        CordaFuture<T> future = node.startFlow(flow);
+        network.runNetwork();
+        return future.get();
+    }
+
+    /**
+     * Registers a pet on A and passes it back and forth between A and B {@code depth} times. Returns the id of the
+     * pet, which ends up on A when depth is even and on B when it is odd.
+     */
+    private UniqueIdentifier petWithHistory(int depth) throws ExecutionException, InterruptedException {
+        UniqueIdentifier linearId = run(a, new RegisterPetFlow("Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12"));
+        for (int i = 0; i < depth; i++) {
+            StartedMockNode from = i % 2 == 0 ? a : b;
+            StartedMockNode to = i % 2 == 0 ? b : a;
+            run(from, new TransferPetFlow(linearId, party(to)));
+        }
+        return linearId;
+    }
+
+    private static int storedTransactions(StartedMockNode node) {
+        return node.transaction(() -> node.getServices().getValidatedTransactions().track().getSnapshot().size());
+    }
+
+    private PetState currentState(StartedMockNode node, UniqueIdentifier linearId) {
+        QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                null, Collections.singletonList(linearId.getId()), null, Vault.StateStatus.UNCONSUMED);
+        return node.transaction(() -> node.getServices().getVaultService().queryBy(PetState.class, criteria)
+                .getStates().get(0).getState().getData());
+    }
+
+    /**
+     * Resolution cost against chain depth. The number of transactions a buyer must fetch and verify is asserted; the
+     * time it takes is logged rather than asserted so that a slow build agent cannot fail the build.
+     */
+    @Test
+    public void buyerResolvesTheWholeHistory() throws Exception {
+        for (int depth : new int[]{1, 10, 40}) {
+            UniqueIdentifier linearId = petWithHistory(depth);
+            StartedMockNode seller = depth % 2 == 0 ? a : b;
+            StartedMockNode buyer = network.createNode();
+
+            long start = System.nanoTime();
+            run(seller, new TransferPetFlow(linearId, party(buyer)));
+            long nanos = System.nanoTime() - start;
+
+            // The birth, every earlier transfer and the purchase itself.
+            assertEquals(depth + 2, storedTransactions(buyer));
+            logger.info("Chain depth {}: buyer resolved {} transactions in {} ms",
+                    depth, storedTransactions(buyer), String.format("%.1f", nanos / 1e6));
+        }
+    }
+
+    @Test
+    public void checkpointedPetIsSoldWithoutItsHistory() throws Exception {
+        int depth = 10;
+        UniqueIdentifier linearId = petWithHistory(depth);
+        SecureHash reissueTxId = run(a, new CheckpointPetFlow(linearId, party(registry)));
+
+        PetState reissued = currentState(a, linearId);
+        assertNotNull(reissued.getReissuedFrom());
+        assertEquals(party(a), reissued.getOwner());
+
+        StartedMockNode buyer = network.createNode();
+        long start = System.nanoTime();
+        SecureHash saleTxId = run(a, new TransferPetFlow(linearId, party(buyer)));
+        long nanos = System.nanoTime() - start;
+
+        // Only the reissue and the purchase; the retirement and everything before it stay behind.
+        assertEquals(2, storedTransactions(buyer));
+        assertNotNull(buyer.getServices().getValidatedTransactions().getTransaction(reissueTxId));
+        assertNotNull(buyer.getServices().getValidatedTransactions().getTransaction(saleTxId));
+        assertNull(buyer.getServices().getValidatedTransactions().getTransaction(reissued.getReissuedFrom().getTxhash()));
+        assertEquals(reissued.getReissuedFrom(), currentState(buyer, linearId).getReissuedFrom());
+        logger.info("Checkpointed chain of depth {}: buyer resolved {} transactions in {} ms",
+                depth, storedTransactions(buyer), String.format("%.1f", nanos / 1e6));
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void onlyTheRegistryCanReissue() throws Exception {
+        UniqueIdentifier linearId = petWithHistory(0);
+        run(a, new CheckpointPetFlow(linearId, party(b)));
+    }
+}
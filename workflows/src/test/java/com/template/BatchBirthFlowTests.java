@@ -0,0 +1,103 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.template.flows.BatchBirthFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+import net.petchain.states.PetState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchBirthFlowTests {
+    private static final Logger logger = LoggerFactory.getLogger(BatchBirthFlowTests.class);
+    private static final int LITTER_COUNT = 50;
+
+    private final MockNetwork network = new MockNetwork(new MockNetworkParameters(ImmutableList.of(
+        TestCordapp.findCordapp("net.petchain.contracts"),
+        TestCordapp.findCordapp("com.template.flows")
+    )));
+    private final StartedMockNode a = network.createNode();
+
+    @Before
+    public void setup() {
+        network.runNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        network.stopNodes();
+    }
+
+    private List<PetState> pets(int count) {
+        Party breeder = a.getInfo().getLegalIdentities().get(0);
+        List<PetState> pets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pets.add(new PetState(breeder, "Pup " + i, "Canine", "Cockapoo", i % 2 == 0 ? "female" : "male", "beige", "2019-05-01", breeder));
+        }
+        return pets;
+    }
+
+    private List<SecureHash> register(List<PetState> pets, int batchSize) throws ExecutionException, InterruptedException {
+        CordaFuture<List<SecureHash>> future = a.startFlow(new BatchBirthFlow(pets, batchSize));
+        network.runNetwork();
+        return future.get();
+    }
+
+    private int unconsumedPets() {
+        return a.transaction(() -> a.getServices().getVaultService()
+                .queryBy(PetState.class, new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED))
+                .getStates().size());
+    }
+
+    @Test
+    public void batchesArePackedUpToTheBatchSize() throws Exception {
+        List<SecureHash> txIds = register(pets(25), 10);
+        assertEquals(3, txIds.size());
+        assertEquals(25, unconsumedPets());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void petsOwnedByAnotherNodeAreRejected() throws Exception {
+        StartedMockNode b = network.createNode();
+        Party other = b.getInfo().getLegalIdentities().get(0);
+        register(ImmutableList.of(new PetState(other, "Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12", other)), 10);
+    }
+
+    /**
+     * Throughput comparison between one pet per transaction and one litter per transaction. Timings are logged
+     * rather than asserted so that a slow build agent cannot fail the build.
+     */
+    @Test
+    public void batchedBirthsOutperformOnePetPerTransaction() throws Exception {
+        long start = System.nanoTime();
+        List<SecureHash> single = register(pets(LITTER_COUNT), 1);
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<SecureHash> batched = register(pets(LITTER_COUNT), LITTER_COUNT);
+        long batchedNanos = System.nanoTime() - start;
+
+        assertEquals(LITTER_COUNT, single.size());
+        assertEquals(1, batched.size());
+        assertEquals(2 * LITTER_COUNT, unconsumedPets());
+
+        logger.info("One pet per transaction: {} pets/sec", String.format("%.1f", LITTER_COUNT / (singleNanos / 1e9)));
+        logger.info("One litter per transaction: {} pets/sec", String.format("%.1f", LITTER_COUNT / (batchedNanos / 1e9)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.template.flows.BatchBirthFlow;
+import com.template.flows.NotaryPoolFlow;
+import com.template.flows.NotarySelector;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkNotarySpec;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+import net.petchain.states.PetState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class NotarySelectorTests {
+    private final MockNetwork network = new MockNetwork(new MockNetworkParameters(ImmutableList.of(
+        TestCordapp.findCordapp("net.petchain.contracts"),
+        TestCordapp.findCordapp("com.template.flows")
+    )).withNotarySpecs(ImmutableList.of(
+        new MockNetworkNotarySpec(new CordaX500Name("Notary", "London", "GB")),
+        new MockNetworkNotarySpec(new CordaX500Name("Notary2", "London", "GB"))
+    )));
+    private final StartedMockNode a = network.createNode();
+
+    @Before
+    public void setup() {
+        network.runNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        network.stopNodes();
+    }
+
+    @Test
+    public void birthsAreShardedAcrossNotariesByPetId() throws Exception {
+        Party breeder = a.getInfo().getLegalIdentities().get(0);
+        List<PetState> pets = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pets.add(new PetState(breeder, "Pup " + i, "Canine", "Cockapoo", "female", "beige", "2019-05-01", breeder));
+        }
+        CordaFuture<List<SecureHash>> future = a.startFlow(new BatchBirthFlow(pets, 100));
+        network.runNetwork();
+
+        // One transaction per notary, since every batch fits in one.
+        assertEquals(2, future.get().size());
+        List<Party> pool = a.transaction(() -> NotarySelector.pool(a.getServices()));
+        assertEquals(2, pool.size());
+        Set<Party> used = new HashSet<>();
+        List<StateAndRef<PetState>> recorded = a.transaction(() -> a.getServices().getVaultService().queryBy(PetState.class).getStates());
+        assertEquals(40, recorded.size());
+        for (StateAndRef<PetState> pet : recorded) {
+            Party expected = pool.get(NotarySelector.shard(pet.getState().getData().getLinearId().getId(), pool.size()));
+            assertEquals(expected, pet.getState().getNotary());
+            used.add(pet.getState().getNotary());
+        }
+        assertEquals(2, used.size());
+    }
+
+    @Test
+    public void clientsSeeTheNodesPool() throws Exception {
+        CordaFuture<List<Party>> future = a.startFlow(new NotaryPoolFlow());
+        network.runNetwork();
+
+        assertEquals(a.transaction(() -> NotarySelector.pool(a.getServices())), future.get());
+    }
+}
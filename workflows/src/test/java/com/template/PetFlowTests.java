@@ -0,0 +1,244 @@
+package com.template;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.google.common.collect.ImmutableList;
+import com.template.flows.LapseExpiredPetsFlow;
+import com.template.flows.LicensePetFlow;
+import com.template.flows.PetFlowMetrics;
+import com.template.flows.RegisterPetFlow;
+import com.template.flows.StepTiming;
+import com.template.flows.TransferPetFlow;
+import com.template.flows.VaccinatePetFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.CollectSignaturesFlow;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+import net.petchain.contracts.PetContract;
+import net.petchain.states.PetState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PetFlowTests {
+    private final MockNetwork network = new MockNetwork(new MockNetworkParameters(ImmutableList.of(
+        TestCordapp.findCordapp("net.petchain.contracts"),
+        TestCordapp.findCordapp("com.template.flows")
+    )));
+    private final StartedMockNode a = network.createNode();
+    private final StartedMockNode b = network.createNode();
+
+    @Before
+    public void setup() {
+        network.runNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        network.stopNodes();
+    }
+
+    private UniqueIdentifier register(StartedMockNode node) throws ExecutionException, InterruptedException {
+        CordaFuture<UniqueIdentifier> future = node.startFlow(new RegisterPetFlow("Momo", "Canine", "Cockapoo", "female", "beige", "2006-10-12"));
+        network.runNetwork();
+        return future.get();
+    }
+
+    private SecureHash transfer(StartedMockNode from, UniqueIdentifier linearId, StartedMockNode to) throws ExecutionException, InterruptedException {
+        CordaFuture<SecureHash> future = from.startFlow(new TransferPetFlow(linearId, to.getInfo().getLegalIdentities().get(0)));
+        network.runNetwork();
+        return future.get();
+    }
+
+    private List<StateAndRef<PetState>> currentState(StartedMockNode node, UniqueIdentifier linearId) {
+        QueryCriteria criteria = new QueryCriteria.LinearStateQueryCriteria(
+                null, Collections.singletonList(linearId.getId()), null, Vault.StateStatus.UNCONSUMED);
+        return node.transaction(() -> node.getServices().getVaultService().queryBy(PetState.class, criteria).getStates());
+    }
+
+    @Test
+    public void registeredPetIsOwnedAndBredByTheRegisteringNode() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        Party partyA = a.getInfo().getLegalIdentities().get(0);
+
+        List<StateAndRef<PetState>> pets = currentState(a, linearId);
+        assertEquals(1, pets.size());
+        assertEquals(partyA, pets.get(0).getState().getData().getOwner());
+        assertEquals(partyA, pets.get(0).getState().getData().getBreeder());
+    }
+
+    @Test
+    public void transferMovesThePetToTheNewOwner() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        SecureHash txId = transfer(a, linearId, b);
+
+        assertNotNull(b.getServices().getValidatedTransactions().getTransaction(txId));
+        assertTrue(currentState(a, linearId).isEmpty());
+        List<StateAndRef<PetState>> pets = currentState(b, linearId);
+        assertEquals(1, pets.size());
+        assertEquals(b.getInfo().getLegalIdentities().get(0), pets.get(0).getState().getData().getOwner());
+        assertEquals(a.getInfo().getLegalIdentities().get(0), pets.get(0).getState().getData().getBreeder());
+    }
+
+    @Test
+    public void petCanBeResoldAlongItsHistory() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        transfer(a, linearId, b);
+        transfer(b, linearId, a);
+
+        assertTrue(currentState(b, linearId).isEmpty());
+        assertEquals(a.getInfo().getLegalIdentities().get(0), currentState(a, linearId).get(0).getState().getData().getOwner());
+    }
+
+    @Test
+    public void groupOfPetsMovesInOneTransaction() throws Exception {
+        List<UniqueIdentifier> kennel = ImmutableList.of(register(a), register(a), register(a));
+        CordaFuture<SecureHash> future = a.startFlow(new TransferPetFlow(kennel, b.getInfo().getLegalIdentities().get(0)));
+        network.runNetwork();
+        SecureHash txId = future.get();
+
+        assertEquals(kennel.size(), b.getServices().getValidatedTransactions().getTransaction(txId).getTx().getOutputs().size());
+        for (UniqueIdentifier linearId : kennel) {
+            assertTrue(currentState(a, linearId).isEmpty());
+            assertEquals(b.getInfo().getLegalIdentities().get(0), currentState(b, linearId).get(0).getState().getData().getOwner());
+        }
+    }
+
+    @Test
+    public void transferStepsAreTimedOnBothSides() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        transfer(a, linearId, b);
+
+        Set<String> initiatorSteps = steps(a, "TransferPetFlow");
+        assertTrue(initiatorSteps.containsAll(ImmutableList.of(
+                PetFlowMetrics.FLOW, PetFlowMetrics.BUILD, PetFlowMetrics.VERIFY, PetFlowMetrics.SIGN,
+                PetFlowMetrics.COLLECT, PetFlowMetrics.NOTARISE, PetFlowMetrics.RECORD)));
+        assertTrue(steps(b, "TransferPetFlowResponder").containsAll(ImmutableList.of(
+                PetFlowMetrics.FLOW, PetFlowMetrics.SIGN, PetFlowMetrics.RECORD)));
+    }
+
+    private static Set<String> steps(StartedMockNode node, String flow) {
+        Set<String> steps = new HashSet<>();
+        for (StepTiming timing : node.getServices().cordaService(PetFlowMetrics.class).getStepTimings()) {
+            if (timing.getFlow().equals(flow) && timing.getCount() > 0) steps.add(timing.getStep());
+        }
+        return steps;
+    }
+
+    @Test
+    public void vaccinationAndLicenseTravelWithThePet() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        CordaFuture<SecureHash> vaccinated = a.startFlow(new VaccinatePetFlow(linearId, "ABC000", "2090-09-01", "2092-08-31"));
+        network.runNetwork();
+        vaccinated.get();
+        CordaFuture<SecureHash> licensed = a.startFlow(new LicensePetFlow(linearId, "WO-1234", "2091-12-31"));
+        network.runNetwork();
+        licensed.get();
+        transfer(a, linearId, b);
+
+        PetState pet = currentState(b, linearId).get(0).getState().getData();
+        assertEquals("ABC000", pet.getRabiesLicense());
+        assertEquals("2092-08-31", pet.getRabiesExpireDate());
+        assertEquals("WO-1234", pet.getMuniLicense());
+        assertEquals("2091-12-31", pet.getEarliestExpireDate());
+    }
+
+    @Test
+    public void expiredRecordsLapseInOneTransactionPerBucket() throws Exception {
+        UniqueIdentifier first = register(a);
+        UniqueIdentifier second = register(a);
+        for (UniqueIdentifier linearId : new UniqueIdentifier[]{first, second}) {
+            CordaFuture<SecureHash> vaccinated = a.startFlow(new VaccinatePetFlow(linearId, "ABC000", "2019-09-01", "2021-08-31"));
+            network.runNetwork();
+            vaccinated.get();
+        }
+        CordaFuture<SecureHash> licensed = a.startFlow(new LicensePetFlow(first, "WO-1234", "2091-12-31"));
+        network.runNetwork();
+        licensed.get();
+
+        CordaFuture<Integer> lapse = a.startFlow(new LapseExpiredPetsFlow("2021-08-31"));
+        network.runNetwork();
+        assertEquals(2, (int) lapse.get());
+
+        PetState firstPet = currentState(a, first).get(0).getState().getData();
+        PetState secondPet = currentState(a, second).get(0).getState().getData();
+        assertNull(firstPet.getRabiesLicense());
+        assertEquals("WO-1234", firstPet.getMuniLicense());
+        assertNull(secondPet.getRabiesLicense());
+        assertEquals(currentState(a, first).get(0).getRef().getTxhash(), currentState(a, second).get(0).getRef().getTxhash());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void onlyTheCurrentOwnerCanTransfer() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        transfer(b, linearId, a);
+    }
+
+    /**
+     * Talks to {@link com.template.flows.TransferPetFlowResponder} as a transfer would, but asks the new owner to sign
+     * the retirement of a pet it already owns.
+     */
+    private static class RetireTheirPetFlow extends TransferPetFlow {
+        private final StateRef theirPet;
+        private final Party victim;
+
+        RetireTheirPetFlow(StateRef theirPet, Party victim) {
+            super(new UniqueIdentifier(), victim);
+            this.theirPet = theirPet;
+            this.victim = victim;
+        }
+
+        @Suspendable
+        @Override
+        public SecureHash call() throws FlowException {
+            StateAndRef<PetState> input = getServiceHub().toStateAndRef(theirPet);
+            TransactionBuilder builder = new TransactionBuilder(input.getState().getNotary())
+                    .addInputState(input)
+                    .addCommand(new PetContract.Commands.Retire(), ImmutableList.of(victim.getOwningKey(), getOurIdentity().getOwningKey()));
+            SignedTransaction partSigned = getServiceHub().signInitialTransaction(builder);
+            FlowSession session = initiateFlow(victim);
+            session.send(getRunId().getUuid().toString());
+            return subFlow(new CollectSignaturesFlow(partSigned, Collections.singletonList(session))).getId();
+        }
+    }
+
+    @Test
+    public void newOwnerRefusesToSignAnythingButATransferToIt() throws Exception {
+        UniqueIdentifier linearId = register(a);
+        SecureHash txId = transfer(a, linearId, b);
+
+        CordaFuture<SecureHash> future = a.startFlow(new RetireTheirPetFlow(new StateRef(txId, 0), b.getInfo().getLegalIdentities().get(0)));
+        network.runNetwork();
+        try {
+            future.get();
+            fail("The new owner signed the retirement of its own pet.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("exactly one Transfer command"));
+        }
+        assertEquals(1, currentState(b, linearId).size());
+    }
+}
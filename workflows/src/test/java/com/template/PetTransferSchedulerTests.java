@@ -0,0 +1,98 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.template.flows.BatchBirthFlow;
+import com.template.flows.PetTransferScheduler;
+import net.corda.core.contracts.UniqueIdentifier;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+import net.petchain.states.PetState;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PetTransferSchedulerTests {
+    // The scheduler starts flows from its own thread, so every node runs its own message pump.
+    private final MockNetwork network = new MockNetwork(new MockNetworkParameters(ImmutableList.of(
+        TestCordapp.findCordapp("net.petchain.contracts"),
+        TestCordapp.findCordapp("com.template.flows")
+    )).withThreadPerNode(true));
+    private final StartedMockNode a = network.createNode();
+    private final StartedMockNode b = network.createNode();
+    private final StartedMockNode c = network.createNode();
+
+    @After
+    public void tearDown() {
+        network.stopNodes();
+    }
+
+    private static Party identity(StartedMockNode node) {
+        return node.getInfo().getLegalIdentities().get(0);
+    }
+
+    private List<UniqueIdentifier> register(int count) throws Exception {
+        Party breeder = identity(a);
+        List<PetState> pets = new ArrayList<>();
+        List<UniqueIdentifier> petIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            PetState pet = new PetState(breeder, "Pup " + i, "Canine", "Cockapoo", "female", "beige", "2019-05-01", breeder);
+            pets.add(pet);
+            petIds.add(pet.getLinearId());
+        }
+        a.startFlow(new BatchBirthFlow(pets, count)).get(30, TimeUnit.SECONDS);
+        return petIds;
+    }
+
+    private PetTransferScheduler scheduler() {
+        return a.getServices().cordaService(PetTransferScheduler.class);
+    }
+
+    private int unconsumedPets(StartedMockNode node) {
+        return node.transaction(() -> node.getServices().getVaultService()
+                .queryBy(PetState.class, new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED))
+                .getStates().size());
+    }
+
+    @Test
+    public void scheduledTransfersAllComplete() throws Exception {
+        List<UniqueIdentifier> petIds = register(20);
+        List<CompletableFuture<SecureHash>> results = new ArrayList<>();
+        for (UniqueIdentifier petId : petIds) results.add(scheduler().transfer(petId, identity(b)));
+        for (CompletableFuture<SecureHash> result : results) result.get(60, TimeUnit.SECONDS);
+
+        assertEquals(20, unconsumedPets(b));
+        assertEquals(0, scheduler().pending());
+    }
+
+    @Test
+    public void transfersOfOnePetRunInSubmissionOrder() throws Exception {
+        UniqueIdentifier petId = register(1).get(0);
+        CompletableFuture<SecureHash> first = scheduler().transfer(petId, identity(b));
+        CompletableFuture<SecureHash> second = scheduler().transfer(petId, identity(c));
+
+        first.get(60, TimeUnit.SECONDS);
+        try {
+            second.get(60, TimeUnit.SECONDS);
+            fail("The second transfer ran after the pet had left this node, so it must fail.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("Found current states for only 0 of 1 pets"));
+        }
+        assertEquals(1, unconsumedPets(b));
+        assertEquals(0, unconsumedPets(c));
+    }
+}